@@ -12,11 +12,14 @@ public class PathFinderUI extends JFrame {
 
     // ── Data ──────────────────────────────────────────────────────
     private final java.util.List<Edge> edges = new ArrayList<>();
+    private RouteGraph graph;   // index and query cache for edges, dropped on each load
 
     // ── Controls ──────────────────────────────────────────────────
     private final JComboBox<String> sourceCombo;
     private final JComboBox<String> criteriaCombo;
+    private final JSpinner          kSpinner;
     private final JLabel            statusLabel;
+    private final JLabel            latencyLabel;
 
     // ── Panels ────────────────────────────────────────────────────
     private final GraphPanel graphPanel;
@@ -68,6 +71,12 @@ public class PathFinderUI extends JFrame {
         styleCombo(criteriaCombo);
         top.add(criteriaCombo);
 
+        top.add(styledLabel("Paths (k):"));
+        kSpinner = new JSpinner(new SpinnerNumberModel(5, 1, 1000, 1));
+        kSpinner.setFont(new Font(Font.MONOSPACED, Font.BOLD, 13));
+        kSpinner.setPreferredSize(new Dimension(64, 30));
+        top.add(kSpinner);
+
         JButton uploadBtn  = styledBtn("Upload CSV",  new Color(45, 100, 185));
         JButton analyzeBtn = styledBtn("Analyze",     new Color(35, 145,  65));
         JButton clearBtn   = styledBtn("Clear",       new Color(130,  35,  35));
@@ -78,6 +87,11 @@ public class PathFinderUI extends JFrame {
         statusLabel.setFont(new Font(Font.MONOSPACED, Font.PLAIN, 11));
         top.add(statusLabel);
 
+        latencyLabel = new JLabel("");
+        latencyLabel.setForeground(ACCENT);
+        latencyLabel.setFont(new Font(Font.MONOSPACED, Font.PLAIN, 11));
+        top.add(latencyLabel);
+
         // ── GRAPH PANEL ──────────────────────────────────────────
         graphPanel = new GraphPanel();
         graphPanel.setPreferredSize(new Dimension(420, 0));
@@ -92,7 +106,7 @@ public class PathFinderUI extends JFrame {
         calcArea.setMargin(new Insets(10, 14, 10, 14));
         calcArea.setText("Upload CSV then click Analyze.");
         JScrollPane calcScroll = new JScrollPane(calcArea);
-        calcScroll.setBorder(titledBorder("CALCULATION  (all paths)", new Color(80, 130, 220)));
+        calcScroll.setBorder(titledBorder("CALCULATION  (k best paths)", new Color(80, 130, 220)));
 
         // ── SUMMARY AREA ─────────────────────────────────────────
         summaryArea = new JTextArea();
@@ -140,6 +154,7 @@ public class PathFinderUI extends JFrame {
         if (fc.showOpenDialog(this) != JFileChooser.APPROVE_OPTION) return;
         try (BufferedReader br = new BufferedReader(new FileReader(fc.getSelectedFile()))) {
             edges.clear();
+            graph = null;
             br.readLine();
             String line;
             while ((line = br.readLine()) != null) {
@@ -181,34 +196,52 @@ public class PathFinderUI extends JFrame {
         boolean doDist = criteria.equals("DISTANCE") || criteria.equals("ALL");
         boolean doTime = criteria.equals("TIME")     || criteria.equals("ALL");
 
+        java.util.List<String> modes = new ArrayList<>();
+        if (doFuel) modes.add("FUEL");
+        if (doDist) modes.add("DISTANCE");
+        if (doTime) modes.add("TIME");
+        int k = (Integer) kSpinner.getValue();
+
         StringBuilder calc    = new StringBuilder();
         StringBuilder summary = new StringBuilder();
-
-        if (doFuel) appendCalcBlock(calc,    src, dests, "FUEL");
-        if (doDist) appendCalcBlock(calc,    src, dests, "DISTANCE");
-        if (doTime) appendCalcBlock(calc,    src, dests, "TIME");
-        if (doFuel) appendSummaryBlock(summary, src, dests, "FUEL");
-        if (doDist) appendSummaryBlock(summary, src, dests, "DISTANCE");
-        if (doTime) appendSummaryBlock(summary, src, dests, "TIME");
+        StringBuilder latency = new StringBuilder();
+        ShortestPaths first = null;
+        long totalNanos = 0;
+
+        for (String mode : modes) {
+            // One Dijkstra pass covers every destination and Yen's algorithm adds the
+            // alternatives; both are cached by the graph, so a repeat costs only path walks
+            long t0 = System.nanoTime();
+            ShortestPaths sp = graph().shortestFrom(src, mode);
+            Map<String, java.util.List<PathCandidate>> alternatives = new HashMap<>();
+            for (String dst : dests) alternatives.put(dst, graph().kShortest(sp, dst, k));
+            long nanos = System.nanoTime() - t0;
+            totalNanos += nanos;
+            latency.append(latency.length() == 0 ? "" : ", ").append(mode).append(' ').append(millis(nanos));
+
+            appendCalcBlock(calc, src, dests, sp, alternatives);
+            appendSummaryBlock(summary, src, dests, sp);
+            if (first == null) first = sp;
+        }
+        latencyLabel.setText("  Query: " + millis(totalNanos) + " ms (" + latency + ")");
 
         calcArea   .setText(calc.toString());
         summaryArea.setText(summary.toString());
         calcArea   .setCaretPosition(0);
         summaryArea.setCaretPosition(0);
 
-        String mode = doFuel ? "FUEL" : doDist ? "DISTANCE" : "TIME";
-        highlightBestOverall(src, dests, mode);
+        highlightBestOverall(dests, first);
     }
 
-    private void highlightBestOverall(String src, java.util.List<String> dests, String mode) {
+    private void highlightBestOverall(java.util.List<String> dests, ShortestPaths sp) {
         double best = Double.MAX_VALUE;
         java.util.List<String> bestPath = new ArrayList<>();
         String bestDst = "";
         for (String dst : dests) {
-            for (PathCandidate c : enumerateAllPaths(src, dst)) {
-                double v = getCrit(c, mode);
-                if (v < best) { best = v; bestPath = c.path; bestDst = dst; }
-            }
+            PathCandidate c = sp.pathTo(dst);
+            if (c == null) continue;
+            double v = getCrit(c, sp.mode);
+            if (v < best) { best = v; bestPath = c.path; bestDst = dst; }
         }
         highlightPath = bestPath;
         currentDst    = bestDst;
@@ -218,8 +251,9 @@ public class PathFinderUI extends JFrame {
     // ================================================================
     //  CALCULATION BLOCK
     // ================================================================
-    private void appendCalcBlock(StringBuilder sb, String src,
-                                  java.util.List<String> dests, String mode) {
+    private void appendCalcBlock(StringBuilder sb, String src, java.util.List<String> dests,
+                                  ShortestPaths sp, Map<String, java.util.List<PathCandidate>> alternatives) {
+        String mode = sp.mode;
         String unit = unitOf(mode);
         sb.append(bar('═', 68)).append("\n");
         sb.append("  ").append(mode).append(" =\n");
@@ -227,15 +261,17 @@ public class PathFinderUI extends JFrame {
         double grandTotal = 0;
 
         for (String dst : dests) {
-            java.util.List<PathCandidate> paths = enumerateAllPaths(src, dst);
-            if (paths.isEmpty()) {
+            PathCandidate shortest = sp.pathTo(dst);
+            if (shortest == null) {
                 sb.append("  ").append(src).append(" -> ").append(dst)
                   .append("  : (unreachable)\n\n"); continue;
             }
-            paths.sort(Comparator.comparingDouble(p -> getCrit(p, mode)));
-            double minVal = getCrit(paths.get(0), mode);
+            double minVal = getCrit(shortest, mode);
             grandTotal += minVal;
 
+            // The k cheapest loopless paths, already in cost order
+            java.util.List<PathCandidate> paths = alternatives.get(dst);
+
             sb.append("  ").append(src).append(" -> ").append(dst).append("\n");
             sb.append(bar('-', 58)).append("\n");
 
@@ -247,8 +283,7 @@ public class PathFinderUI extends JFrame {
 
                 for (int k = 0; k < c.path.size() - 1; k++) {
                     String u = c.path.get(k), v = c.path.get(k + 1);
-                    Edge e  = findEdge(u, v);
-                    double sv = (e == null) ? 0 : getCritEdge(e, mode);
+                    double sv = graph().weight(u, v, mode);
                     segVals.add(sv);
                     if (segStr.length() > 0) segStr.append(" + ");
                     segStr.append(u).append(",").append(v).append("=").append(fmt(sv));
@@ -279,7 +314,8 @@ public class PathFinderUI extends JFrame {
     //  SUMMARY BLOCK
     // ================================================================
     private void appendSummaryBlock(StringBuilder sb, String src,
-                                     java.util.List<String> dests, String mode) {
+                                     java.util.List<String> dests, ShortestPaths sp) {
+        String mode = sp.mode;
         String unit = unitOf(mode);
         sb.append(bar('═', 54)).append("\n");
         sb.append("  ").append(mode).append(" - BEST PATHS FROM NODE ").append(src).append("\n");
@@ -288,13 +324,11 @@ public class PathFinderUI extends JFrame {
         sb.append(bar('-', 54)).append("\n");
         double total = 0;
         for (String dst : dests) {
-            java.util.List<PathCandidate> paths = enumerateAllPaths(src, dst);
-            if (paths.isEmpty()) {
+            PathCandidate best = sp.pathTo(dst);
+            if (best == null) {
                 sb.append(String.format("  %-8s  %-26s  N/A%n",
                     src + "->" + dst, "(unreachable)")); continue;
             }
-            paths.sort(Comparator.comparingDouble(p -> getCrit(p, mode)));
-            PathCandidate best = paths.get(0);
             double val = getCrit(best, mode);
             total += val;
             sb.append(String.format("  %-8s  %-26s  %.2f %s%n",
@@ -332,14 +366,13 @@ public class PathFinderUI extends JFrame {
                     String sel = (String) criteriaCombo.getSelectedItem();
                     final String resolvedMode = (sel == null || sel.equals("ALL")) ? "FUEL" : sel;
 
-                    java.util.List<PathCandidate> paths = enumerateAllPaths(currentSrc, clicked);
-                    if (paths.isEmpty()) return;
+                    long t0 = System.nanoTime();
+                    PathCandidate best = graph().shortestFrom(currentSrc, resolvedMode).pathTo(clicked);
+                    latencyLabel.setText("  Query " + currentSrc + " -> " + clicked + ": "
+                        + millis(System.nanoTime() - t0) + " ms");
+                    if (best == null) return;
 
-                    // FIX 2: use the final resolvedMode in the lambda — no more
-                    //        "local variable referenced from lambda must be final" error
-                    paths.sort(Comparator.comparingDouble(p -> getCrit(p, resolvedMode)));
-
-                    highlightPath = paths.get(0).path;
+                    highlightPath = best.path;
                     currentDst    = clicked;
                     repaint();
                     scrollCalcTo(currentSrc, clicked);
@@ -496,10 +529,9 @@ public class PathFinderUI extends JFrame {
                 if (lSel == null || lSel.equals("ALL")) labelMode = "FUEL";
                 else labelMode = lSel;
 
-                java.util.List<PathCandidate> ps = enumerateAllPaths(currentSrc, currentDst);
-                if (!ps.isEmpty()) {
-                    ps.sort(Comparator.comparingDouble(p -> getCrit(p, labelMode)));
-                    double val = getCrit(ps.get(0), labelMode);
+                PathCandidate best = graph().shortestFrom(currentSrc, labelMode).pathTo(currentDst);
+                if (best != null) {
+                    double val = getCrit(best, labelMode);
                     String label = pathStr(highlightPath) + "  =  "
                         + fmt(val) + " " + unitOf(labelMode);
                     g2.setColor(new Color(0, 220, 255, 220));
@@ -571,37 +603,6 @@ public class PathFinderUI extends JFrame {
         }
     }
 
-    // ================================================================
-    //  ENUMERATE ALL PATHS
-    // ================================================================
-    private java.util.List<PathCandidate> enumerateAllPaths(String src, String dst) {
-        java.util.List<PathCandidate> results = new ArrayList<>();
-        if (src == null || dst == null || src.equals(dst)) return results;
-        Deque<java.util.List<String>> stack = new ArrayDeque<>();
-        stack.push(new ArrayList<>(Collections.singletonList(src)));
-        while (!stack.isEmpty()) {
-            java.util.List<String> path = stack.pop();
-            String last = path.get(path.size() - 1);
-            if (last.equals(dst)) {
-                double d = 0, t = 0, f = 0; boolean ok = true;
-                for (int i = 0; i < path.size() - 1; i++) {
-                    Edge e = findEdge(path.get(i), path.get(i + 1));
-                    if (e == null) { ok = false; break; }
-                    d += e.dist; t += e.time; f += e.fuel;
-                }
-                if (ok) results.add(new PathCandidate(new ArrayList<>(path), d, t, f));
-                continue;
-            }
-            for (Edge e : edges) {
-                if (!e.from.equals(last) || path.contains(e.to)) continue;
-                java.util.List<String> next = new ArrayList<>(path);
-                next.add(e.to);
-                stack.push(next);
-            }
-        }
-        return results;
-    }
-
     // ================================================================
     //  HELPERS
     // ================================================================
@@ -613,27 +614,13 @@ public class PathFinderUI extends JFrame {
         };
     }
 
-    private double getCritEdge(Edge e, String mode) {
-        return switch (mode) {
-            case "DISTANCE" -> e.dist;
-            case "TIME"     -> e.time;
-            default         -> e.fuel;
-        };
-    }
-
-    private Edge findEdge(String u, String v) {
-        return edges.stream()
-            .filter(e -> e.from.equals(u) && e.to.equals(v))
-            .findFirst().orElse(null);
+    private RouteGraph graph() {
+        if (graph == null) graph = new RouteGraph(edges);
+        return graph;
     }
 
     private Set<String> getSortedNodes() {
-        Set<String> s = new TreeSet<>(Comparator.comparingInt(x -> {
-            try { return Integer.parseInt(x); }
-            catch (NumberFormatException ex) { return x.hashCode(); }
-        }));
-        for (Edge e : edges) { s.add(e.from); s.add(e.to); }
-        return s;
+        return graph().sortedNames;
     }
 
     private String pathStr(java.util.List<String> p) {
@@ -645,6 +632,10 @@ public class PathFinderUI extends JFrame {
         return String.format("%.1f", v);
     }
 
+    private static String millis(long nanos) {
+        return String.format("%.2f", nanos / 1e6);
+    }
+
     private String unitOf(String mode) {
         return switch (mode) {
             case "DISTANCE" -> "km";
@@ -704,6 +695,460 @@ public class PathFinderUI extends JFrame {
         }
     }
 
+    // Graph index built once per load. Node names are interned to ints
+    // 0..n-1 and edges are stored in compressed sparse rows: the edges of
+    // node u occupy slots outStart[u] .. outStart[u+1]-1, in CSV order, with
+    // one double[] column per criterion. A second set of rows lists the
+    // incoming slots of each node. Only the first edge of each (from, to)
+    // pair gets a slot, matching the old first-match edge lookup.
+    static class RouteGraph {
+        final Map<String, Integer>   ids   = new HashMap<>();
+        final java.util.List<String> names = new ArrayList<>();
+        final Set<String> sortedNames;
+        final int[]    outStart;    // node id -> first outgoing slot, n + 1 entries
+        final int[]    inStart;     // node id -> first entry of inSlot, n + 1 entries
+        final int[]    inSlot;      // incoming slots grouped by target node
+        final int[]    tail;        // slot -> source node id
+        final int[]    head;        // slot -> target node id
+        final int[]    rank;        // slot -> last CSV row of its (from, to) pair
+        final double[] dist, time, fuel;
+
+        // Result cache, valid for the lifetime of this index: per criterion,
+        // the tree of every source queried so far. Each tree is one row of
+        // the all-pairs cost and predecessor matrices.
+        private final Map<String, ShortestPaths[]> trees = new HashMap<>();
+
+        RouteGraph(java.util.List<Edge> edges) {
+            // Pass 1: intern names, keep the first edge of each pair, count degrees
+            Map<Long, Integer> pairs = new HashMap<>();   // (u, v) -> index into kept
+            java.util.List<Integer> kept = new ArrayList<>();
+            java.util.List<Integer> lastRow = new ArrayList<>();
+            int[] from = new int[edges.size()], to = new int[edges.size()];
+            for (int i = 0; i < edges.size(); i++) {
+                Edge e = edges.get(i);
+                from[i] = intern(e.from);
+                to[i]   = intern(e.to);
+                Integer k = pairs.putIfAbsent(((long) from[i] << 32) | to[i], kept.size());
+                if (k == null) { kept.add(i); lastRow.add(i); }
+                else lastRow.set(k, i);
+            }
+            int n = names.size(), m = kept.size();
+            outStart = new int[n + 1];
+            inStart  = new int[n + 1];
+            for (int i : kept) { outStart[from[i] + 1]++; inStart[to[i] + 1]++; }
+            for (int u = 0; u < n; u++) { outStart[u + 1] += outStart[u]; inStart[u + 1] += inStart[u]; }
+
+            // Pass 2: place the kept edges into their rows
+            tail = new int[m]; head = new int[m]; rank = new int[m];
+            dist = new double[m]; time = new double[m]; fuel = new double[m];
+            inSlot = new int[m];
+            int[] nextOut = Arrays.copyOf(outStart, n), nextIn = Arrays.copyOf(inStart, n);
+            for (int k = 0; k < m; k++) {
+                int i = kept.get(k);
+                Edge e = edges.get(i);
+                int slot = nextOut[from[i]]++;
+                tail[slot] = from[i]; head[slot] = to[i]; rank[slot] = lastRow.get(k);
+                dist[slot] = e.dist;  time[slot] = e.time; fuel[slot] = e.fuel;
+                inSlot[nextIn[to[i]]++] = slot;
+            }
+
+            Set<String> sorted = new TreeSet<>(Comparator.comparingInt(x -> {
+                try { return Integer.parseInt(x); }
+                catch (NumberFormatException ex) { return x.hashCode(); }
+            }));
+            sorted.addAll(names);
+            sortedNames = Collections.unmodifiableSet(sorted);
+        }
+
+        private int intern(String name) {
+            Integer id = ids.get(name);
+            if (id != null) return id;
+            ids.put(name, names.size());
+            names.add(name);
+            return names.size() - 1;
+        }
+
+        double[] column(String mode) {
+            return switch (mode) {
+                case "DISTANCE" -> dist;
+                case "TIME"     -> time;
+                default         -> fuel;
+            };
+        }
+
+        // Slot of the edge u -> v, or -1; a scan of u's row, O(degree)
+        int slot(int u, int v) {
+            for (int ei = outStart[u]; ei < outStart[u + 1]; ei++)
+                if (head[ei] == v) return ei;
+            return -1;
+        }
+
+        // Weight of the edge u -> v under mode, 0 if there is no such edge
+        double weight(String u, String v, String mode) {
+            Integer a = ids.get(u), b = ids.get(v);
+            int ei = (a == null || b == null) ? -1 : slot(a, b);
+            return ei < 0 ? 0 : column(mode)[ei];
+        }
+
+        // Shortest-path tree from src, computed on first use and then served
+        // from the cache, so later queries cost only the path walk
+        ShortestPaths shortestFrom(String src, String mode) {
+            Integer s = ids.get(src);
+            if (s == null) return dijkstra(-1, mode);
+            ShortestPaths[] row = trees.computeIfAbsent(mode, m -> new ShortestPaths[names.size()]);
+            if (row[s] == null) row[s] = dijkstra(s, mode);
+            return row[s];
+        }
+
+        // Dijkstra with a binary heap of (cost, node) entries. A node can be
+        // queued more than once; stale entries are skipped when popped.
+        // Edge weights are assumed non-negative, as fuel, distance and time are.
+        private ShortestPaths dijkstra(int s, String mode) {
+            int n = names.size();
+            double[] cost = new double[n];
+            int[]    via  = new int[n];
+            Arrays.fill(cost, Double.POSITIVE_INFINITY);
+            Arrays.fill(via, -1);
+            if (s < 0) return new ShortestPaths(this, mode, cost, via);
+
+            double[] w = column(mode);
+            boolean[] settled = new boolean[n];
+            MinHeap heap = new MinHeap(Math.max(1, n));
+            cost[s] = 0;
+            heap.push(s, 0);
+            while (heap.size > 0) {
+                int u = heap.pop();
+                if (settled[u]) continue;
+                settled[u] = true;
+                for (int ei = outStart[u]; ei < outStart[u + 1]; ei++) {
+                    int v = head[ei];
+                    double c = cost[u] + w[ei];
+                    if (c < cost[v]) { cost[v] = c; via[v] = ei; heap.push(v, c); }
+                    else if (c == cost[v] && !settled[v] && precedes(via, ei, via[v])) via[v] = ei;
+                }
+            }
+            return new ShortestPaths(this, mode, cost, via);
+        }
+
+        // Yen's algorithm: the k cheapest loopless paths to dst in cost order,
+        // starting with the tree path of sp. Each round re-routes from every
+        // node of the last accepted path, with the root's nodes and the next
+        // hops of accepted paths sharing that root removed, and accepts the
+        // cheapest candidate found so far. The spur searches are A* runs
+        // guided by the unrestricted cost to dst, which never overestimates.
+        // Equal costs are broken with precedes(), in the spur searches and
+        // between candidates, so the paths come out in the order the old
+        // exhaustive listing sorted them into.
+        // The paths are cached on the tree. Yen's output for a smaller k is a
+        // prefix of its output for a larger one, so a cached list serves any
+        // k up to the one it was computed for.
+        java.util.List<PathCandidate> kShortest(ShortestPaths sp, String dst, int k) {
+            Integer t = ids.get(dst);
+            if (t == null || sp.via[t] < 0 || k < 1) return new ArrayList<>();
+            KPaths cached = sp.alternatives.get(t);
+            if (cached == null || cached.k < k) {
+                cached = new KPaths(k, yen(sp, t, k));
+                sp.alternatives.put(t, cached);
+            }
+            return cached.paths.subList(0, Math.min(k, cached.paths.size()));
+        }
+
+        private java.util.List<PathCandidate> yen(ShortestPaths sp, int t, int k) {
+            java.util.List<PathCandidate> result = new ArrayList<>();
+
+            java.util.List<int[]> accepted = new ArrayList<>();
+            accepted.add(sp.edgesTo(t));
+            PriorityQueue<Candidate> candidates = new PriorityQueue<>();
+            Set<java.util.List<Integer>> seen = new HashSet<>();
+            seen.add(asList(accepted.get(0)));
+            boolean[] bannedNode = new boolean[names.size()];
+            boolean[] bannedEdge = new boolean[head.length];
+            SpurSearch search = new SpurSearch(t, sp.mode, bannedNode, bannedEdge);
+            double[] w = column(sp.mode);
+
+            while (accepted.size() < k) {
+                int[] last = accepted.get(accepted.size() - 1);
+                double root = 0;   // cost of last[0 .. i), summed like costOf
+                for (int i = 0; i < last.length; i++) {
+                    int spur = tail[last[i]];
+                    for (int[] p : accepted)
+                        if (p.length > i && Arrays.equals(p, 0, i, last, 0, i)) bannedEdge[p[i]] = true;
+                    for (int j = 0; j < i; j++) bannedNode[tail[last[j]]] = true;
+
+                    int[] spurPath = search.from(spur, root);
+                    if (spurPath != null) {
+                        int[] path = new int[i + spurPath.length];
+                        System.arraycopy(last, 0, path, 0, i);
+                        System.arraycopy(spurPath, 0, path, i, spurPath.length);
+                        if (seen.add(asList(path))) candidates.add(new Candidate(path, costOf(path, sp.mode), ranks(path)));
+                    }
+                    Arrays.fill(bannedNode, false);
+                    for (int[] p : accepted) if (p.length > i) bannedEdge[p[i]] = false;
+                    root += w[last[i]];
+                }
+                if (candidates.isEmpty()) break;
+                accepted.add(candidates.poll().edges);
+            }
+            for (int[] p : accepted) result.add(candidate(p));
+            return result;
+        }
+
+        // Spur searches towards one target. The arrays are shared by all
+        // searches of a kShortest call and only the entries a search touched
+        // are reset, so a search costs what it explores, not O(nodes).
+        // The heuristic is scaled down a hair so that it is strictly
+        // consistent: a node is then always popped after every node that
+        // reaches it at equal cost, and the tie-break sees them all, just as
+        // in dijkstra(). Costs start from the root's, so they are the same
+        // sums the candidates are compared by.
+        class SpurSearch {
+            static final double H_SCALE = 1 - 1e-6;
+
+            final int       t;
+            final String    mode;
+            final boolean[] bannedNode, bannedEdge;
+            final double[]  w;
+            final double[]  toT;        // unrestricted cost to t, the A* heuristic
+            final double[]  cost;
+            final int[]     via;
+            final boolean[] settled;
+            final int[]     touched;
+            int             touchedCount;
+            final MinHeap   heap = new MinHeap(16);
+
+            SpurSearch(int t, String mode, boolean[] bannedNode, boolean[] bannedEdge) {
+                this.t = t; this.mode = mode;
+                this.bannedNode = bannedNode; this.bannedEdge = bannedEdge;
+                int n = names.size();
+                w       = column(mode);
+                toT     = costsTo(t, mode);
+                cost    = new double[n];
+                via     = new int[n];
+                settled = new boolean[n];
+                touched = new int[n];
+                Arrays.fill(cost, Double.POSITIVE_INFINITY);
+                Arrays.fill(via, -1);
+            }
+
+            // Slots of the cheapest allowed path from s to t, or null; root
+            // is the cost of the path up to s
+            int[] from(int s, double root) {
+                int[] path = null;
+                reach(s, root, -1);
+                while (heap.size > 0) {
+                    int u = heap.pop();
+                    if (settled[u]) continue;
+                    if (u == t) { path = pathFrom(s); break; }
+                    settled[u] = true;
+                    for (int ei = outStart[u]; ei < outStart[u + 1]; ei++) {
+                        int v = head[ei];
+                        if (bannedEdge[ei] || bannedNode[v] || toT[v] == Double.POSITIVE_INFINITY) continue;
+                        double c = cost[u] + w[ei];
+                        if (c < cost[v]) reach(v, c, ei);
+                        else if (c == cost[v] && !settled[v] && precedes(via, ei, via[v])) via[v] = ei;
+                    }
+                }
+                heap.size = 0;
+                for (int i = 0; i < touchedCount; i++) {
+                    int v = touched[i];
+                    cost[v] = Double.POSITIVE_INFINITY; via[v] = -1; settled[v] = false;
+                }
+                touchedCount = 0;
+                return path;
+            }
+
+            private void reach(int v, double c, int ei) {
+                if (cost[v] == Double.POSITIVE_INFINITY) touched[touchedCount++] = v;
+                cost[v] = c; via[v] = ei;
+                heap.push(v, c + toT[v] * H_SCALE);
+            }
+
+            private int[] pathFrom(int s) {
+                int len = 0;
+                for (int v = t; v != s; v = tail[via[v]]) len++;
+                int[] path = new int[len];
+                for (int v = t; v != s; v = tail[via[v]]) path[--len] = via[v];
+                return path;
+            }
+        }
+
+        // Dijkstra over incoming edges: the cost from every node to t
+        double[] costsTo(int t, String mode) {
+            double[] w = column(mode);
+            double[] cost = new double[names.size()];
+            Arrays.fill(cost, Double.POSITIVE_INFINITY);
+            boolean[] settled = new boolean[names.size()];
+            MinHeap heap = new MinHeap(16);
+            cost[t] = 0;
+            heap.push(t, 0);
+            while (heap.size > 0) {
+                int v = heap.pop();
+                if (settled[v]) continue;
+                settled[v] = true;
+                for (int j = inStart[v]; j < inStart[v + 1]; j++) {
+                    int ei = inSlot[j];
+                    int u  = tail[ei];
+                    double c = cost[v] + w[ei];
+                    if (c < cost[u]) { cost[u] = c; heap.push(u, c); }
+                }
+            }
+            return cost;
+        }
+
+        // Summed hop by hop from the source, like every other path total
+        double costOf(int[] path, String mode) {
+            double[] w = column(mode);
+            double c = 0;
+            for (int ei : path) c += w[ei];
+            return c;
+        }
+
+        PathCandidate candidate(int[] path) {
+            java.util.List<String> nodes = new ArrayList<>();
+            nodes.add(names.get(tail[path[0]]));
+            double d = 0, tm = 0, f = 0;
+            for (int ei : path) {
+                nodes.add(names.get(head[ei]));
+                d += dist[ei]; tm += time[ei]; f += fuel[ei];
+            }
+            return new PathCandidate(nodes, d, tm, f);
+        }
+
+        private int[] ranks(int[] path) {
+            int[] r = new int[path.length];
+            for (int i = 0; i < path.length; i++) r[i] = rank[path[i]];
+            return r;
+        }
+
+        private static java.util.List<Integer> asList(int[] path) {
+            java.util.List<Integer> l = new ArrayList<>(path.length);
+            for (int ei : path) l.add(ei);
+            return l;
+        }
+
+        // Tie-break between two equal-cost paths ending in slots a and b, so
+        // ties resolve as the old exhaustive search did: its DFS tried a
+        // node's outgoing edges from the last CSV row back, so at the first
+        // hop where the paths differ, the edge with the higher rank wins.
+        private boolean precedes(int[] via, int a, int b) {
+            int[] pa = hopsTo(via, a), pb = hopsTo(via, b);
+            for (int i = pa.length - 1, j = pb.length - 1; i >= 0 && j >= 0; i--, j--)
+                if (pa[i] != pb[j]) return pa[i] > pb[j];
+            return pa.length < pb.length;
+        }
+
+        // Ranks of the hops of the tree path ending in slot e, last hop first
+        private int[] hopsTo(int[] via, int e) {
+            int len = 0;
+            for (int x = e; x >= 0; x = via[tail[x]]) len++;
+            int[] r = new int[len];
+            int i = 0;
+            for (int x = e; x >= 0; x = via[tail[x]]) r[i++] = rank[x];
+            return r;
+        }
+    }
+
+    // Shortest-path tree from one source under one criterion
+    static class ShortestPaths {
+        final RouteGraph g;
+        final String     mode;
+        final double[]   cost;
+        final int[]      via;   // slot used to reach each node, -1 for the source and unreached nodes
+        final Map<Integer, KPaths> alternatives = new HashMap<>();   // Yen's paths by target id
+
+        ShortestPaths(RouteGraph g, String mode, double[] cost, int[] via) {
+            this.g = g; this.mode = mode; this.cost = cost; this.via = via;
+        }
+
+        // Best path to dst with all three totals, or null if dst is the
+        // source, unknown or unreachable
+        PathCandidate pathTo(String dst) {
+            Integer t = g.ids.get(dst);
+            if (t == null || via[t] < 0) return null;
+            return g.candidate(edgesTo(t));
+        }
+
+        // Slots of the tree path to node t, from the source
+        int[] edgesTo(int t) {
+            int len = 0;
+            for (int v = t; via[v] >= 0; v = g.tail[via[v]]) len++;
+            int[] path = new int[len];
+            for (int v = t; via[v] >= 0; v = g.tail[via[v]]) path[--len] = via[v];
+            return path;
+        }
+    }
+
+    // Yen's paths to one target, computed for up to k paths
+    static class KPaths {
+        final int k;
+        final java.util.List<PathCandidate> paths;
+        KPaths(int k, java.util.List<PathCandidate> paths) { this.k = k; this.paths = paths; }
+    }
+
+    // A Yen candidate path. Equal costs are ordered like precedes() orders
+    // tree paths: at the first hop where the paths differ, the higher rank
+    // comes first. Candidates all end at the same target, so neither is a
+    // prefix of the other.
+    static class Candidate implements Comparable<Candidate> {
+        final int[]  edges;
+        final double cost;
+        final int[]  ranks;     // rank of each hop, from the source
+
+        Candidate(int[] edges, double cost, int[] ranks) {
+            this.edges = edges; this.cost = cost; this.ranks = ranks;
+        }
+
+        @Override
+        public int compareTo(Candidate o) {
+            int c = Double.compare(cost, o.cost);
+            if (c != 0) return c;
+            for (int i = 0; i < ranks.length && i < o.ranks.length; i++)
+                if (ranks[i] != o.ranks[i]) return Integer.compare(o.ranks[i], ranks[i]);
+            return Integer.compare(ranks.length, o.ranks.length);
+        }
+    }
+
+    // Binary min-heap of int node ids keyed by double cost, on parallel arrays
+    static class MinHeap {
+        int[]    node;
+        double[] key;
+        int      size;
+
+        MinHeap(int capacity) { node = new int[capacity]; key = new double[capacity]; }
+
+        void push(int n, double k) {
+            if (size == node.length) {
+                node = Arrays.copyOf(node, size * 2);
+                key  = Arrays.copyOf(key,  size * 2);
+            }
+            int i = size++;
+            while (i > 0) {
+                int p = (i - 1) >>> 1;
+                if (key[p] <= k) break;
+                node[i] = node[p]; key[i] = key[p];
+                i = p;
+            }
+            node[i] = n; key[i] = k;
+        }
+
+        int pop() {
+            int top = node[0];
+            int    n = node[--size];
+            double k = key[size];
+            int i = 0;
+            while (true) {
+                int c = 2 * i + 1;
+                if (c >= size) break;
+                if (c + 1 < size && key[c + 1] < key[c]) c++;
+                if (key[c] >= k) break;
+                node[i] = node[c]; key[i] = key[c];
+                i = c;
+            }
+            node[i] = n; key[i] = k;
+            return top;
+        }
+    }
+
     static class PathCandidate {
         final java.util.List<String> path;
         final double dist, time, fuel;
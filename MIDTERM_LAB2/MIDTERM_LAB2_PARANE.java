@@ -4,17 +4,23 @@ import java.awt.*;
 import java.awt.event.*;
 import java.awt.geom.*;
 import java.io.*;
+import java.util.ArrayDeque;
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Collections;
-import java.util.Comparator;
+import java.util.Deque;
 import java.util.HashMap;
 import java.util.HashSet;
 import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
 import java.util.List;
 import java.util.Map;
 import java.util.Objects;
-import java.util.PriorityQueue;
+import java.util.Random;
 import java.util.Set;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
 import javax.swing.*;
 import javax.swing.border.*;
 import javax.swing.filechooser.FileNameExtensionFilter;
@@ -47,11 +53,14 @@ public class MIDTERM_LAB2_PARANE extends JFrame {
     private List<Edge> allEdges              = new ArrayList<>();
     private List<String> nodes               = new ArrayList<>();
     private Map<String, Point> nodePositions = new LinkedHashMap<>();
+    private RoadIndex roadIndex;             // int-id view of graph, built with it by loadCSV
+    private LayoutWorker layoutWorker;       // force layout still settling, else null
 
     // ── UI ────────────────────────────────────────────────────────────────────
     private NodeMapPanel mapPanel;
-    private JComboBox<String> fromCombo, toCombo, criteriaCombo;
+    private JComboBox<String> fromCombo, toCombo, criteriaCombo, engineCombo;
     private JTextArea resultArea;
+    private JButton uploadBtn, findBtn;
     private JLabel statusLabel, csvBadge, mapTitleLabel;
     private List<String> currentPath = new ArrayList<>();
     private String loadedFileName    = "none";
@@ -75,9 +84,20 @@ public class MIDTERM_LAB2_PARANE extends JFrame {
     public MIDTERM_LAB2_PARANE(){ buildUI(); }
 
     // ── CSV Loader ────────────────────────────────────────────────────────────
-    private boolean loadCSV(String path) {
-        graph.clear(); allEdges.clear(); nodes.clear(); nodePositions.clear(); currentPath.clear();
-        stopCarAnimation();
+    // A parsed map with its road index. loadCSV runs on a CsvLoader thread
+    // and builds one from scratch, so the map on screen stays untouched
+    // until the new one is swapped in on the EDT.
+    static class RoadMap {
+        final Map<String, List<Edge>> graph = new LinkedHashMap<>();
+        final List<Edge> allEdges           = new ArrayList<>();
+        final Set<String> nodes             = new LinkedHashSet<>();   // first-seen order
+        RoadIndex index;
+    }
+
+    // Returns null if the file has no valid data rows
+    static RoadMap loadCSV(String path) throws IOException {
+        RoadMap map=new RoadMap();
+        Map<String, List<Edge>> graph=map.graph; List<Edge> allEdges=map.allEdges;
         try (BufferedReader br=new BufferedReader(new FileReader(path))) {
             String line; boolean header=true; int rows=0;
             while ((line=br.readLine())!=null){
@@ -92,15 +112,49 @@ public class MIDTERM_LAB2_PARANE extends JFrame {
                 graph.computeIfAbsent(fr,k->new ArrayList<>()).add(e);
                 Edge rev=new Edge(to,fr,d,t,f); allEdges.add(rev);
                 graph.computeIfAbsent(to,k->new ArrayList<>()).add(rev);
-                if(!nodes.contains(fr)) nodes.add(fr);
-                if(!nodes.contains(to)) nodes.add(to);
+                map.nodes.add(fr); map.nodes.add(to);
                 rows++;
             }
-            if(rows==0){showErr("CSV has no valid data rows.");return false;}
-        } catch(FileNotFoundException e){showErr("File not found:\n"+path);return false;
-        } catch(NumberFormatException e){showErr("Number format error in CSV.");return false;
-        } catch(Exception e){showErr("Error: "+e.getMessage());return false;}
-        assignNodePositions(); return true;
+            if(rows==0) return null;
+        }
+        map.index=new RoadIndex(new ArrayList<>(map.nodes),graph);
+        map.index.buildHierarchies();
+        return map;
+    }
+
+    // Parses and indexes the file off the EDT; done() reports errors as
+    // loadCSV used to, or swaps the new map in
+    class CsvLoader extends SwingWorker<RoadMap, Void> {
+        private final File file;
+        CsvLoader(File file){ this.file=file; }
+
+        @Override protected RoadMap doInBackground() throws IOException {
+            return loadCSV(file.getAbsolutePath());
+        }
+
+        @Override protected void done(){
+            uploadBtn.setEnabled(true); findBtn.setEnabled(true);
+            RoadMap map;
+            try { map=get(); }
+            catch(InterruptedException|ExecutionException e){
+                Throwable c=e.getCause()!=null?e.getCause():e;
+                if(c instanceof FileNotFoundException) showErr("File not found:\n"+file.getAbsolutePath());
+                else if(c instanceof NumberFormatException) showErr("Number format error in CSV.");
+                else showErr("Error: "+c.getMessage());
+                statusLabel.setText("✗  Failed: "+file.getName());
+                return;
+            }
+            if(map==null){
+                showErr("CSV has no valid data rows.");
+                statusLabel.setText("✗  Failed: "+file.getName());
+                return;
+            }
+            stopCarAnimation(); stopLayout();
+            graph=map.graph; allEdges=map.allEdges; nodes=new ArrayList<>(map.nodes); roadIndex=map.index;
+            nodePositions.clear(); currentPath.clear();
+            assignNodePositions();
+            showLoaded(file.getName());
+        }
     }
     private void showErr(String m){JOptionPane.showMessageDialog(this,m,"Error",JOptionPane.ERROR_MESSAGE);}
 
@@ -108,117 +162,863 @@ public class MIDTERM_LAB2_PARANE extends JFrame {
     // Connected nodes attract each other; all nodes repel.
     // Result: the graph draws itself as a natural road network
     // where every edge visibly connects its two endpoints.
+    // Nodes start on the seed circle and a LayoutWorker moves them into
+    // place in the background; routes can be picked in the meantime, since
+    // they do not depend on where the cities are drawn.
     private void assignNodePositions() {
-        int W = 760, H = 600, PAD = 75;
+        stopLayout();
         int n = nodes.size();
         if (n == 0) return;
 
-        // --- Seed: evenly spaced circle ---
-        Map<String, double[]> pos = new LinkedHashMap<>();
-        for (int i = 0; i < n; i++) {
-            double angle = 2 * Math.PI * i / n - Math.PI / 2;
-            double r = Math.min(W, H) * 0.32;
-            pos.put(nodes.get(i), new double[]{
-                W / 2.0 + r * Math.cos(angle),
-                H / 2.0 + r * Math.sin(angle)
-            });
+        ForceLayout layout = new ForceLayout(nodes, allEdges, 760, 600, 75);
+        nodePositions.clear();
+        for (int i = 0; i < n; i++)
+            nodePositions.put(nodes.get(i), new Point((int) layout.x[i], (int) layout.y[i]));
+        layoutWorker = new LayoutWorker(layout, new ArrayList<>(nodes));
+        layoutWorker.execute();
+    }
+
+    private void stopLayout() {
+        if (layoutWorker != null) { layoutWorker.cancel(false); layoutWorker = null; }
+    }
+
+    // Steps the simulation off the EDT and hands position snapshots to the
+    // map at most FPS times a second; the final positions are always shown.
+    class LayoutWorker extends SwingWorker<Void, int[]> {
+        private static final int FPS = 30;
+        private final ForceLayout layout;
+        private final List<String> names;   // node order of the snapshots
+
+        LayoutWorker(ForceLayout layout, List<String> names) {
+            this.layout = layout; this.names = names;
         }
 
-        // Ideal spring length — scales with canvas area and node count
-        double k      = Math.sqrt((double)(W * H) / Math.max(n, 1));
-        double idealL = k * 1.05;
-        double repK   = k * k * 2.0;
+        @Override protected Void doInBackground() {
+            long frame = 1_000_000_000L / FPS, last = System.nanoTime();
+            boolean running = true;
+            while (running && !isCancelled()) {
+                running = layout.step();
+                long now = System.nanoTime();
+                if (!running || now - last >= frame) { publish(layout.snapshot()); last = now; }
+            }
+            return null;
+        }
 
-        // --- Iterative force simulation ---
-        for (int iter = 0; iter < 400; iter++) {
-            Map<String, double[]> disp = new HashMap<>();
-            for (String nd : nodes) disp.put(nd, new double[]{0, 0});
+        // Only the newest snapshot matters; older ones queued behind a slow
+        // repaint are skipped
+        @Override protected void process(List<int[]> frames) {
+            if (isCancelled()) return;
+            int[] xy = frames.get(frames.size() - 1);
+            for (int i = 0; i < names.size(); i++) {
+                Point p = nodePositions.get(names.get(i));
+                if (p != null) p.setLocation(xy[2 * i], xy[2 * i + 1]);
+            }
+            mapPanel.repaint();
+        }
+
+        @Override protected void done() {
+            if (layoutWorker == this) layoutWorker = null;
+        }
+    }
 
-            // Repulsion: every pair of nodes pushes apart
+    // The force simulation on int node ids (in `nodes` order) and primitive
+    // arrays. Repulsion uses a Barnes–Hut quadtree: a cell that looks small
+    // from a node (size / distance < THETA) pushes it as one body of the
+    // cell's total mass at its centre of mass, which makes an iteration
+    // O(n log n) instead of O(n²); on large maps the nodes are split into
+    // ranges that the common ForkJoinPool pushes in parallel, each task
+    // writing only its own nodes' displacements.
+    // The temperature never drops below 1.5 px a step, so crowded maps keep
+    // moving to the end; what stops is progress. Every WINDOW iterations
+    // the net distance each node got from the last checkpoint is compared
+    // with the path it travelled: under CONVERGED of the path, nodes are
+    // only jittering in place at the current temperature. The layout then
+    // cools twice as fast to refine at a finer step, and stops once it has
+    // settled at the lowest temperature, or after MAX_ITER iterations.
+    static class ForceLayout {
+        static final int    MAX_ITER  = 400;
+        static final int    WINDOW    = 20;
+        static final double THETA     = 0.8;
+        static final double CONVERGED = 0.15;
+        static final double MIN_CELL  = 1e-3;   // coincident nodes share a leaf below this size
+        static final int    SPLIT     = 512;    // nodes per parallel repulsion task
+
+        final double[] x, y, dx, dy;
+        private final double[] checkX, checkY;   // positions at the last checkpoint
+        private double travelled;                // path length of all nodes since then
+        private double temp = 18.0;              // largest step a node may take, in px
+        final int[] ea, eb;                     // each road once, whatever its direction
+        final int n, W, H, PAD;
+        final double idealL, repK;
+        int iter;
+
+        // Quadtree, rebuilt every iteration: cell c spans [ox, ox + size) ×
+        // [oy, oy + size), its children are child[4c..4c+3] (-1 if none) and
+        // body[c] is the node of a leaf (-1 for an inner or empty cell)
+        private int cells;
+        private int[] child, body;
+        private double[] ox, oy, size, mass, comX, comY;
+
+        ForceLayout(List<String> nodes, List<Edge> edges, int W, int H, int PAD) {
+            this.n = nodes.size(); this.W = W; this.H = H; this.PAD = PAD;
+            x = new double[n]; y = new double[n]; dx = new double[n]; dy = new double[n];
+            checkX = new double[n]; checkY = new double[n];
+
+            // --- Seed: evenly spaced circle ---
             for (int i = 0; i < n; i++) {
-                for (int j = i + 1; j < n; j++) {
-                    String ni = nodes.get(i), nj = nodes.get(j);
-                    double[] pi = pos.get(ni), pj = pos.get(nj);
-                    double dx = pi[0] - pj[0], dy = pi[1] - pj[1];
-                    double dist = Math.max(Math.sqrt(dx * dx + dy * dy), 1.0);
-                    double force = repK / (dist * dist);
-                    double fx = (dx / dist) * force, fy = (dy / dist) * force;
-                    disp.get(ni)[0] += fx;  disp.get(ni)[1] += fy;
-                    disp.get(nj)[0] -= fx;  disp.get(nj)[1] -= fy;
-                }
+                double angle = 2 * Math.PI * i / n - Math.PI / 2;
+                double r = Math.min(W, H) * 0.32;
+                x[i] = W / 2.0 + r * Math.cos(angle);
+                y[i] = H / 2.0 + r * Math.sin(angle);
             }
 
+            // Ideal spring length — scales with canvas area and node count
+            double k = Math.sqrt((double)(W * H) / Math.max(n, 1));
+            idealL = k * 1.05;
+            repK   = k * k * 2.0;
+
+            // --- Road list: one entry per connected pair ---
+            Map<String, Integer> ids = new HashMap<>();
+            for (int i = 0; i < n; i++) ids.put(nodes.get(i), i);
+            Set<Long> seen = new HashSet<>();
+            int[] a = new int[edges.size()], b = new int[edges.size()];
+            int m = 0;
+            for (Edge e : edges) {
+                Integer u = ids.get(e.from), v = ids.get(e.to);
+                if (u == null || v == null || u.intValue() == v.intValue()) continue;
+                int lo = Math.min(u, v), hi = Math.max(u, v);
+                if (!seen.add(((long) lo << 32) | hi)) continue;
+                a[m] = lo; b[m] = hi; m++;
+            }
+            ea = Arrays.copyOf(a, m); eb = Arrays.copyOf(b, m);
+
+            int cap = 2 * n + 16;
+            child = new int[4 * cap]; body = new int[cap];
+            ox = new double[cap]; oy = new double[cap]; size = new double[cap];
+            mass = new double[cap]; comX = new double[cap]; comY = new double[cap];
+        }
+
+        // One iteration; returns false once the layout has settled
+        boolean step() {
+            if (iter >= MAX_ITER) return false;
+            Arrays.fill(dx, 0); Arrays.fill(dy, 0);
+
+            // Repulsion: every node is pushed away from all others
+            buildTree();
+            if (n < 2 * SPLIT) repel(0, n);
+            else ForkJoinPool.commonPool().invoke(new Repel(0, n));
+
             // Attraction: edges pull connected pairs together
-            Set<String> visited = new HashSet<>();
-            for (Edge e : allEdges) {
-                String key = e.from.compareTo(e.to) < 0
-                    ? e.from + "|" + e.to : e.to + "|" + e.from;
-                if (!visited.add(key)) continue;
-                double[] pi = pos.get(e.from), pj = pos.get(e.to);
-                if (pi == null || pj == null) continue;
-                double dx = pj[0] - pi[0], dy = pj[1] - pi[1];
-                double dist = Math.max(Math.sqrt(dx * dx + dy * dy), 1.0);
+            for (int e = 0; e < ea.length; e++) {
+                int i = ea[e], j = eb[e];
+                double ddx = x[j] - x[i], ddy = y[j] - y[i];
+                double dist = Math.max(Math.sqrt(ddx * ddx + ddy * ddy), 1.0);
                 double stretch = (dist - idealL) / dist * 0.30;
-                double fx = dx * stretch, fy = dy * stretch;
-                disp.get(e.from)[0] += fx;  disp.get(e.from)[1] += fy;
-                disp.get(e.to)[0]   -= fx;  disp.get(e.to)[1]   -= fy;
+                double fx = ddx * stretch, fy = ddy * stretch;
+                dx[i] += fx;  dy[i] += fy;
+                dx[j] -= fx;  dy[j] -= fy;
             }
 
             // Gravity: gentle pull toward canvas center (prevents drift)
             double cx = 0, cy = 0;
-            for (double[] p : pos.values()) { cx += p[0]; cy += p[1]; }
+            for (int i = 0; i < n; i++) { cx += x[i]; cy += y[i]; }
             cx /= n; cy /= n;
-            for (String nd : nodes) {
-                disp.get(nd)[0] += (W / 2.0 - cx) * 0.05;
-                disp.get(nd)[1] += (H / 2.0 - cy) * 0.05;
-            }
+            double gx = (W / 2.0 - cx) * 0.05, gy = (H / 2.0 - cy) * 0.05;
 
             // Apply displacement with linear cooling
-            double temp = Math.max(18.0 - iter * 0.045, 1.5);
-            for (String nd : nodes) {
-                double[] p = pos.get(nd), d = disp.get(nd);
-                double dLen = Math.max(Math.sqrt(d[0] * d[0] + d[1] * d[1]), 0.001);
+            for (int i = 0; i < n; i++) {
+                double ddx = dx[i] + gx, ddy = dy[i] + gy;
+                double dLen = Math.max(Math.sqrt(ddx * ddx + ddy * ddy), 0.001);
                 double move = Math.min(dLen, temp);
-                p[0] = Math.max(PAD, Math.min(W - PAD, p[0] + (d[0] / dLen) * move));
-                p[1] = Math.max(PAD, Math.min(H - PAD, p[1] + (d[1] / dLen) * move));
+                double nx = Math.max(PAD, Math.min(W - PAD, x[i] + (ddx / dLen) * move));
+                double ny = Math.max(PAD, Math.min(H - PAD, y[i] + (ddy / dLen) * move));
+                travelled += Math.hypot(nx - x[i], ny - y[i]);
+                x[i] = nx; y[i] = ny;
             }
+            iter++;
+            double floor = 1.5;
+            temp = Math.max(temp - 0.045, floor);
+            if (iter % WINDOW != 0 || !settled()) return true;
+            if (temp <= floor) return false;
+            temp = Math.max(temp / 2, floor);
+            return true;
         }
 
-        // Finalise: convert to integer Points
-        nodePositions.clear();
-        for (String nd : nodes) {
-            double[] p = pos.get(nd);
-            nodePositions.put(nd, new Point((int) p[0], (int) p[1]));
+        private boolean settled() {
+            double net = 0;
+            for (int i = 0; i < n; i++) {
+                net += Math.hypot(x[i] - checkX[i], y[i] - checkY[i]);
+                checkX[i] = x[i]; checkY[i] = y[i];
+            }
+            boolean still = iter > WINDOW && net <= CONVERGED * travelled;
+            travelled = 0;
+            return still;
         }
-    }
 
-    // ── Dijkstra ──────────────────────────────────────────────────────────────
-    private Object[] dijkstra(String start,String end,String crit){
-        Map<String,Double> dist=new HashMap<>();
-        Map<String,String> prev=new HashMap<>();
-        PriorityQueue<String> pq=new PriorityQueue<>(Comparator.comparingDouble(dist::get));
-        for(String n:nodes) dist.put(n,Double.MAX_VALUE);
-        dist.put(start,0.0); pq.add(start);
-        while(!pq.isEmpty()){
-            String c=pq.poll(); if(c.equals(end)) break;
-            for(Edge e:graph.getOrDefault(c,Collections.emptyList())){
-                double w=crit.equals("Distance")?e.distance:crit.equals("Time")?e.time:e.fuel;
-                double nd=dist.get(c)+w;
-                if(nd<dist.getOrDefault(e.to,Double.MAX_VALUE)){
-                    dist.put(e.to,nd); prev.put(e.to,c); pq.remove(e.to); pq.add(e.to);
+        // Current positions as x0, y0, x1, y1, ... in whole pixels
+        int[] snapshot() {
+            int[] xy = new int[2 * n];
+            for (int i = 0; i < n; i++) { xy[2 * i] = (int) x[i]; xy[2 * i + 1] = (int) y[i]; }
+            return xy;
+        }
+
+        private class Repel extends RecursiveAction {
+            private static final long serialVersionUID = 1L;
+            final int lo, hi;
+            Repel(int lo, int hi) { this.lo = lo; this.hi = hi; }
+
+            @Override protected void compute() {
+                if (hi - lo <= SPLIT) { repel(lo, hi); return; }
+                int mid = (lo + hi) >>> 1;
+                invokeAll(new Repel(lo, mid), new Repel(mid, hi));
+            }
+        }
+
+        // Adds the repulsion on nodes lo..hi-1 to dx, dy; reads only the
+        // tree and positions, so disjoint ranges can run concurrently
+        void repel(int lo, int hi) {
+            double theta2 = THETA * THETA;
+            int[] st = new int[64];
+            for (int i = lo; i < hi; i++) {
+                double fx = 0, fy = 0;
+                int sp = 0;
+                st[sp++] = 0;
+                while (sp > 0) {
+                    int c = st[--sp];
+                    double ddx = x[i] - comX[c], ddy = y[i] - comY[c];
+                    double d2 = ddx * ddx + ddy * ddy;
+                    if (body[c] >= 0 || size[c] * size[c] < theta2 * d2) {
+                        if (body[c] == i && mass[c] == 1) continue;
+                        double dist = Math.max(Math.sqrt(d2), 1.0);
+                        double force = repK * mass[c] / (dist * dist);
+                        fx += (ddx / dist) * force;
+                        fy += (ddy / dist) * force;
+                    } else {
+                        if (sp + 4 > st.length) st = Arrays.copyOf(st, 2 * st.length);
+                        for (int q = 4 * c; q < 4 * c + 4; q++)
+                            if (child[q] >= 0) st[sp++] = child[q];
+                    }
+                }
+                dx[i] += fx;  dy[i] += fy;
+            }
+        }
+
+        private void buildTree() {
+            double minX = x[0], maxX = x[0], minY = y[0], maxY = y[0];
+            for (int i = 1; i < n; i++) {
+                minX = Math.min(minX, x[i]); maxX = Math.max(maxX, x[i]);
+                minY = Math.min(minY, y[i]); maxY = Math.max(maxY, y[i]);
+            }
+            cells = 0;
+            newCell(minX, minY, Math.max(maxX - minX, maxY - minY) + 1.0);
+            for (int i = 0; i < n; i++) insert(i);
+            for (int c = 0; c < cells; c++) { comX[c] /= mass[c]; comY[c] /= mass[c]; }
+        }
+
+        private void insert(int i) {
+            int c = 0;
+            while (true) {
+                if (mass[c] == 0) { body[c] = i; addBody(c, i); return; }
+                if (body[c] >= 0) {
+                    if (size[c] < MIN_CELL) { addBody(c, i); return; }
+                    int b = body[c];                  // push the resident node one level down
+                    body[c] = -1;
+                    int q = childOf(c, b);
+                    body[q] = b; addBody(q, b);
                 }
+                addBody(c, i);
+                c = childOf(c, i);
             }
         }
-        List<String> path=new ArrayList<>();
-        for(String n=end;n!=null;n=prev.get(n)) path.add(0,n);
-        if(path.isEmpty()||!path.get(0).equals(start)) return null;
+
+        // The child of c whose quadrant holds node i, created if missing
+        private int childOf(int c, int i) {
+            double half = size[c] / 2;
+            int qx = x[i] >= ox[c] + half ? 1 : 0, qy = y[i] >= oy[c] + half ? 1 : 0;
+            int slot = 4 * c + 2 * qy + qx;
+            if (child[slot] < 0) {
+                int nc = newCell(ox[c] + qx * half, oy[c] + qy * half, half);
+                child[slot] = nc;
+            }
+            return child[slot];
+        }
+
+        private void addBody(int c, int i) {
+            mass[c]++; comX[c] += x[i]; comY[c] += y[i];
+        }
+
+        private int newCell(double x0, double y0, double s) {
+            if (cells == body.length) {
+                int cap = 2 * cells;
+                child = Arrays.copyOf(child, 4 * cap); body = Arrays.copyOf(body, cap);
+                ox = Arrays.copyOf(ox, cap); oy = Arrays.copyOf(oy, cap); size = Arrays.copyOf(size, cap);
+                mass = Arrays.copyOf(mass, cap); comX = Arrays.copyOf(comX, cap); comY = Arrays.copyOf(comY, cap);
+            }
+            int c = cells++;
+            Arrays.fill(child, 4 * c, 4 * c + 4, -1);
+            body[c] = -1; ox[c] = x0; oy[c] = y0; size[c] = s;
+            mass[c] = 0; comX[c] = 0; comY[c] = 0;
+            return c;
+        }
+    }
+
+    // ── Dijkstra ──────────────────────────────────────────────────────────────
+    // Returns {path, distance, time, fuel, search stats}, or null if there is no route
+    private Object[] dijkstra(String start,String end,String crit,String engine){
+        RoadIndex.Search search=roadIndex.route(start,end,RoadIndex.criterion(crit),engine);
+        List<String> path=search.path;
+        if(path==null) return null;
         double td=0,tt=0,tf=0;
         for(int i=0;i<path.size()-1;i++){
             String a=path.get(i),b=path.get(i+1);
             for(Edge e:graph.getOrDefault(a,Collections.emptyList()))
                 if(e.to.equals(b)){td+=e.distance;tt+=e.time;tf+=e.fuel;break;}
         }
-        return new Object[]{path,td,tt,tf};
+        return new Object[]{path,td,tt,tf,search};
+    }
+
+    // ── Road Index ────────────────────────────────────────────────────────────
+    // int ids in `nodes` order and CSR adjacency in `graph` order: the roads
+    // leaving node u are slots start[u]..start[u+1]-1, with one weight column
+    // per criterion. Rebuilt by loadCSV; queries allocate only primitive arrays.
+    static class RoadIndex {
+        static final String[] ENGINES={"Dijkstra","Bidirectional","A* (landmarks)","Contraction hierarchy"};
+        static final int LANDMARKS=8;
+        static final int SPEEDUP_SAMPLE=31, SPEEDUP_REPEAT=3;   // queries timed on both engines per new hierarchy, best of 3 each
+        static final int WARMUP_SETTLED=200_000;   // untimed work per engine first, so the JIT has compiled both
+
+        final Map<String,Integer> ids=new HashMap<>();
+        final String[] names;
+        final int[] start, head;
+        final double[][] weight;   // [criterion][slot]: distance, time, fuel
+        private final double[][][] landmarkDist=new double[3][][];   // [criterion][landmark][node], built on first A* query
+        private final Hierarchy[] hierarchy=new Hierarchy[3];        // [criterion], built by loadCSV
+
+        RoadIndex(List<String> nodes,Map<String,List<Edge>> graph){
+            int n=nodes.size(), m=0;
+            names=nodes.toArray(new String[0]);
+            for(int i=0;i<n;i++){ ids.put(names[i],i); m+=graph.getOrDefault(names[i],Collections.emptyList()).size(); }
+            start=new int[n+1]; head=new int[m]; weight=new double[3][m];
+            int slot=0;
+            for(int u=0;u<n;u++){
+                start[u]=slot;
+                for(Edge e:graph.getOrDefault(names[u],Collections.emptyList())){
+                    head[slot]=ids.get(e.to);
+                    weight[0][slot]=e.distance; weight[1][slot]=e.time; weight[2][slot]=e.fuel;
+                    slot++;
+                }
+            }
+            start[n]=slot;
+        }
+
+        // Outcome of one query: the route (null if none), nodes settled, latency
+        static class Search {
+            List<String> path;
+            int settled;
+            long nanos, prepNanos;   // prepNanos > 0 when this query built the landmarks
+        }
+
+        static int criterion(String crit){
+            return crit.equals("Distance")?0:crit.equals("Time")?1:2;
+        }
+
+        // One hierarchy per criterion, each with its speedup sample. Slow on
+        // big maps, so loadCSV calls this on the loader thread
+        void buildHierarchies(){
+            for(int c=0;c<3;c++){
+                Hierarchy h=new Hierarchy(start,head,weight[c]);
+                h.speedup=speedupOf(h,c);
+                hierarchy[c]=h;
+            }
+        }
+
+        Hierarchy hierarchy(int crit){ return hierarchy[crit]; }
+
+        // Hierarchy against plain Dijkstra on random pairs of distinct nodes,
+        // timed once here so that hierarchy queries stay lean. Both engines
+        // are warmed up first. Each query counts its best of a few runs, and
+        // the median of the per-query ratios keeps a GC pause or a slow
+        // outlier from swinging the figure.
+        private double speedupOf(Hierarchy h,int crit){
+            int n=names.length;
+            if(n<2) return 1;
+            Random rnd=new Random(n);
+            for(int ch=0,dj=0;ch<WARMUP_SETTLED||dj<WARMUP_SETTLED;){
+                Search q=new Search();
+                if(ch<WARMUP_SETTLED){ h.route(rnd.nextInt(n),rnd.nextInt(n),q); ch+=Math.max(1,q.settled); }
+                else { dijkstra(rnd.nextInt(n),rnd.nextInt(n),crit,q); dj+=Math.max(1,q.settled); }
+            }
+            double[] ratio=new double[SPEEDUP_SAMPLE];
+            for(int i=0;i<SPEEDUP_SAMPLE;i++){
+                int s=rnd.nextInt(n), t=rnd.nextInt(n-1);
+                if(t>=s) t++;
+                long ch=Long.MAX_VALUE, dj=Long.MAX_VALUE;
+                for(int r=0;r<SPEEDUP_REPEAT;r++){
+                    long t0=System.nanoTime();
+                    h.route(s,t,new Search());
+                    long t1=System.nanoTime();
+                    dijkstra(s,t,crit,new Search());
+                    long t2=System.nanoTime();
+                    ch=Math.min(ch,t1-t0); dj=Math.min(dj,t2-t1);
+                }
+                ratio[i]=(double)Math.max(1,dj)/Math.max(1,ch);
+            }
+            Arrays.sort(ratio);
+            return ratio[SPEEDUP_SAMPLE/2];
+        }
+
+        Search route(String from,String to,int crit,String engine){
+            Search q=new Search();
+            Integer s=ids.get(from), t=ids.get(to);
+            if(s==null||t==null) return q;
+            long t0=System.nanoTime();
+            if(engine.equals(ENGINES[1])){
+                q.path=bidirectional(s,t,crit,q);
+            } else if(engine.equals(ENGINES[2])){
+                if(landmarkDist[crit]==null){
+                    long l0=System.nanoTime();
+                    landmarkDist[crit]=landmarks(crit);
+                    q.prepNanos=System.nanoTime()-l0;
+                }
+                q.path=pathOf(s,t,aStar(s,t,crit,q),null);
+            } else if(engine.equals(ENGINES[3])){
+                List<Integer> ids=hierarchy[crit].route(s,t,q);
+                if(ids!=null){
+                    q.path=new ArrayList<>(ids.size());
+                    for(int v:ids) q.path.add(names[v]);
+                }
+            } else {
+                q.path=pathOf(s,t,dijkstra(s,t,crit,q),null);
+            }
+            q.nanos=System.nanoTime()-t0-q.prepNanos;
+            return q;
+        }
+
+        // Names along prev from s to meet, then along next from meet to the end
+        private List<String> pathOf(int s,int meet,int[] prev,int[] next){
+            if(meet!=s&&prev[meet]<0) return null;
+            List<String> path=new ArrayList<>();
+            for(int v=meet;v>=0;v=prev[v]) path.add(names[v]);
+            Collections.reverse(path);
+            if(next!=null) for(int v=next[meet];v>=0;v=next[v]) path.add(names[v]);
+            return path;
+        }
+
+        // Dijkstra over the indexed heap; stops once end is settled.
+        // Returns the predecessor array, -1 for start and unreached nodes.
+        int[] dijkstra(int s,int end,int crit,Search q){
+            int n=names.length;
+            double[] w=weight[crit], dist=new double[n];
+            int[] prev=new int[n];
+            Arrays.fill(dist,Double.MAX_VALUE);
+            Arrays.fill(prev,-1);
+            IndexedHeap pq=new IndexedHeap(n);
+            dist[s]=0; pq.update(s,0);
+            while(!pq.isEmpty()){
+                int c=pq.poll(); q.settled++; if(c==end) break;
+                for(int i=start[c];i<start[c+1];i++){
+                    int v=head[i];
+                    double nd=dist[c]+w[i];
+                    if(nd<dist[v]){ dist[v]=nd; prev[v]=c; pq.update(v,nd); }
+                }
+            }
+            return prev;
+        }
+
+        // Searches from both ends at once, always advancing the side whose
+        // queue has the smaller key, and stops when the two smallest keys
+        // together reach the best start-to-end cost seen through a node
+        // reached from both sides. Every road is loaded in both directions
+        // with the same weights, so the backward search uses the same rows.
+        private List<String> bidirectional(int s,int t,int crit,Search q){
+            int n=names.length;
+            double[] w=weight[crit], df=new double[n], db=new double[n];
+            int[] prev=new int[n], next=new int[n];
+            Arrays.fill(df,Double.MAX_VALUE); Arrays.fill(db,Double.MAX_VALUE);
+            Arrays.fill(prev,-1); Arrays.fill(next,-1);
+            IndexedHeap pf=new IndexedHeap(n), pb=new IndexedHeap(n);
+            df[s]=0; pf.update(s,0);
+            db[t]=0; pb.update(t,0);
+            double best=s==t?0:Double.MAX_VALUE;
+            int meet=s==t?s:-1;
+            while(!pf.isEmpty()&&!pb.isEmpty()&&pf.peekKey()+pb.peekKey()<best){
+                boolean fwd=pf.peekKey()<=pb.peekKey();
+                IndexedHeap pq=fwd?pf:pb;
+                double[] d=fwd?df:db, other=fwd?db:df;
+                int[] link=fwd?prev:next;
+                int c=pq.poll(); q.settled++;
+                for(int i=start[c];i<start[c+1];i++){
+                    int v=head[i];
+                    double nd=d[c]+w[i];
+                    if(nd<d[v]){ d[v]=nd; link[v]=c; pq.update(v,nd); }
+                    if(other[v]<Double.MAX_VALUE&&d[v]+other[v]<best){ best=d[v]+other[v]; meet=v; }
+                }
+            }
+            return meet<0?null:pathOf(s,meet,prev,next);
+        }
+
+        // A* with the ALT bound: for a landmark L, the triangle inequality
+        // gives cost(v,t) >= |d(L,t) - d(L,v)| on this symmetric graph, and
+        // the largest bound over all landmarks guides the search to t.
+        int[] aStar(int s,int t,int crit,Search q){
+            int n=names.length;
+            double[] w=weight[crit], dist=new double[n], h=new double[n];
+            int[] prev=new int[n];
+            Arrays.fill(dist,Double.MAX_VALUE);
+            Arrays.fill(prev,-1);
+            Arrays.fill(h,-1);
+            double[][] lm=landmarkDist[crit];
+            IndexedHeap pq=new IndexedHeap(n);
+            dist[s]=0; pq.update(s,bound(lm,s,t,h));
+            while(!pq.isEmpty()){
+                int c=pq.poll(); q.settled++; if(c==t) break;
+                for(int i=start[c];i<start[c+1];i++){
+                    int v=head[i];
+                    double nd=dist[c]+w[i];
+                    if(nd<dist[v]){ dist[v]=nd; prev[v]=c; pq.update(v,nd+bound(lm,v,t,h)); }
+                }
+            }
+            return prev;
+        }
+
+        private static double bound(double[][] lm,int v,int t,double[] h){
+            if(h[v]>=0) return h[v];
+            double b=0;
+            for(double[] d:lm)
+                if(d[v]<Double.MAX_VALUE&&d[t]<Double.MAX_VALUE) b=Math.max(b,Math.abs(d[t]-d[v]));
+            return h[v]=b;
+        }
+
+        // Farthest-point landmarks: each new landmark is the node farthest
+        // from all landmarks chosen so far, so they spread to the edges of
+        // the map and into every disconnected part of it.
+        private double[][] landmarks(int crit){
+            int n=names.length, k=Math.min(LANDMARKS,n);
+            double[][] lm=new double[k][];
+            double[] nearest=new double[n];
+            Arrays.fill(nearest,Double.POSITIVE_INFINITY);
+            int next=0;
+            for(int l=0;l<k;l++){
+                lm[l]=distancesFrom(next,crit);
+                int far=-1;
+                for(int v=0;v<n;v++){
+                    double d=lm[l][v]==Double.MAX_VALUE?Double.POSITIVE_INFINITY:lm[l][v];
+                    nearest[v]=Math.min(nearest[v],d);
+                    if(far<0||nearest[v]>nearest[far]) far=v;
+                }
+                next=far;
+            }
+            return lm;
+        }
+
+        private double[] distancesFrom(int s,int crit){
+            int n=names.length;
+            double[] w=weight[crit], dist=new double[n];
+            Arrays.fill(dist,Double.MAX_VALUE);
+            IndexedHeap pq=new IndexedHeap(n);
+            dist[s]=0; pq.update(s,0);
+            while(!pq.isEmpty()){
+                int c=pq.poll();
+                for(int i=start[c];i<start[c+1];i++){
+                    int v=head[i];
+                    double nd=dist[c]+w[i];
+                    if(nd<dist[v]){ dist[v]=nd; pq.update(v,nd); }
+                }
+            }
+            return dist;
+        }
+    }
+
+    // ── Contraction Hierarchy ─────────────────────────────────────────────────
+    // Nodes are contracted one at a time, least important first. Contracting
+    // v removes it and, for each pair of neighbours whose shortest connection
+    // ran through v, adds a shortcut remembering v as its middle node. Each
+    // node keeps its edges to nodes contracted after it, so a query searches
+    // upward from both ends, meets at the highest node of the route, and the
+    // shortcuts are unpacked back into real roads. Roads are loaded in both
+    // directions with equal weights, so one upward graph serves both sides.
+    static class Hierarchy {
+        // Nodes a witness search may settle when contracting, and when only
+        // estimating a node's priority. A search cut short adds a shortcut
+        // that was not needed, which costs space but never correctness.
+        static final int WITNESS_LIMIT=500, ESTIMATE_LIMIT=40;
+        final int[] upStart, upTail, upHead, upMid;   // upMid = -1 for a real road
+        final double[] upWeight;
+        final int shortcuts;
+        final long buildNanos;
+        double speedup;   // median Dijkstra time over hierarchy time, on a query sample
+
+        // query state, reused: only the nodes a query reached are reset
+        private final double[] df, db;
+        private final int[] pf, pb, reached;   // pf/pb = upward edge each node was reached by
+        private final IndexedHeap hf, hb;
+
+        // contraction state, dropped once the upward graph is built; the
+        // neighbour lists hold only nodes that are not contracted yet
+        private int[][] nbr, mid;
+        private double[][] wt;
+        private int[] deg;
+        private double[] witness;
+        private int[] touched, target;
+        private int stamp;
+        private IndexedHeap wpq;
+
+        Hierarchy(int[] start,int[] head,double[] w){
+            long t0=System.nanoTime();
+            int n=start.length-1;
+            nbr=new int[n][]; mid=new int[n][]; wt=new double[n][]; deg=new int[n];
+            witness=new double[n]; touched=new int[n]; target=new int[n]; wpq=new IndexedHeap(n);
+            Arrays.fill(witness,Double.MAX_VALUE);
+            for(int u=0;u<n;u++){
+                int d=Math.max(2,start[u+1]-start[u]);
+                nbr[u]=new int[d]; mid[u]=new int[d]; wt[u]=new double[d];
+                for(int i=start[u];i<start[u+1];i++) if(head[i]!=u) link(u,head[i],w[i],-1);
+            }
+
+            IndexedHeap order=new IndexedHeap(n);
+            int[] gone=new int[n];
+            for(int v=0;v<n;v++) order.update(v,priority(v,gone));
+            int m=0;
+            int[] tail=new int[Math.max(16,2*n)], to=new int[tail.length], via=new int[tail.length];
+            double[] cost=new double[tail.length];
+            while(!order.isEmpty()){
+                int v=order.poll();
+                double p=priority(v,gone);
+                if(!order.isEmpty()&&p>order.peekKey()){ order.update(v,p); continue; }
+                contract(v,true);
+                for(int i=0;i<deg[v];i++){
+                    int u=nbr[v][i];
+                    if(m==tail.length){
+                        tail=Arrays.copyOf(tail,2*m); to=Arrays.copyOf(to,2*m);
+                        via=Arrays.copyOf(via,2*m); cost=Arrays.copyOf(cost,2*m);
+                    }
+                    tail[m]=v; to[m]=u; via[m]=mid[v][i]; cost[m]=wt[v][i]; m++;
+                    gone[u]++;
+                    unlink(u,v);
+                }
+            }
+            nbr=mid=null; wt=null; deg=touched=target=null; witness=null; wpq=null;
+
+            upStart=new int[n+1]; upTail=new int[m]; upHead=new int[m]; upMid=new int[m]; upWeight=new double[m];
+            for(int i=0;i<m;i++) upStart[tail[i]+1]++;
+            for(int u=0;u<n;u++) upStart[u+1]+=upStart[u];
+            int[] fill=Arrays.copyOf(upStart,n);
+            int sc=0;
+            for(int i=0;i<m;i++){
+                int e=fill[tail[i]]++;
+                upTail[e]=tail[i]; upHead[e]=to[i]; upMid[e]=via[i]; upWeight[e]=cost[i];
+                if(via[i]>=0) sc++;
+            }
+            shortcuts=sc;
+            df=new double[n]; db=new double[n]; pf=new int[n]; pb=new int[n]; reached=new int[n];
+            Arrays.fill(df,Double.MAX_VALUE); Arrays.fill(db,Double.MAX_VALUE);
+            Arrays.fill(pf,-1); Arrays.fill(pb,-1);
+            hf=new IndexedHeap(n); hb=new IndexedHeap(n);
+            buildNanos=System.nanoTime()-t0;
+        }
+
+        // Adds road u->x, or lowers it if it is already there
+        private void link(int u,int x,double c,int m){
+            for(int i=0;i<deg[u];i++)
+                if(nbr[u][i]==x){ if(c<wt[u][i]){ wt[u][i]=c; mid[u][i]=m; } return; }
+            if(deg[u]==nbr[u].length){
+                int cap=2*deg[u];
+                nbr[u]=Arrays.copyOf(nbr[u],cap); mid[u]=Arrays.copyOf(mid[u],cap); wt[u]=Arrays.copyOf(wt[u],cap);
+            }
+            nbr[u][deg[u]]=x; wt[u][deg[u]]=c; mid[u][deg[u]]=m; deg[u]++;
+        }
+
+        private void unlink(int u,int x){
+            for(int i=0;i<deg[u];i++)
+                if(nbr[u][i]==x){
+                    int last=--deg[u];
+                    nbr[u][i]=nbr[u][last]; wt[u][i]=wt[u][last]; mid[u][i]=mid[u][last];
+                    return;
+                }
+        }
+
+        // Edge difference plus contracted neighbours, which spreads the
+        // contraction evenly over the map. Priorities go stale as neighbours
+        // are contracted; a stale node is re-checked when it reaches the top.
+        private double priority(int v,int[] gone){
+            return contract(v,false)-deg[v]+gone[v];
+        }
+
+        // Shortcuts needed to remove v; adds them when apply is set
+        private int contract(int v,boolean apply){
+            int added=0;
+            for(int i=0;i<deg[v];i++){
+                int u=nbr[v][i];
+                double max=-1;
+                for(int j=i+1;j<deg[v];j++) max=Math.max(max,wt[v][j]);
+                if(max<0) continue;
+                stamp++;
+                for(int j=i+1;j<deg[v];j++) target[nbr[v][j]]=stamp;
+                int seen=witnessSearch(u,v,wt[v][i]+max,apply?WITNESS_LIMIT:ESTIMATE_LIMIT,deg[v]-i-1);
+                for(int j=i+1;j<deg[v];j++){
+                    int x=nbr[v][j];
+                    double c=wt[v][i]+wt[v][j];
+                    if(witness[x]<=c) continue;
+                    added++;
+                    if(apply){ link(u,x,c,v); link(x,u,c,v); }
+                }
+                for(int k=0;k<seen;k++) witness[touched[k]]=Double.MAX_VALUE;
+            }
+            return added;
+        }
+
+        // Bounded Dijkstra from u that avoids v and contracted nodes, and
+        // stops once the `left` nodes marked with the current stamp are all
+        // settled; leaves distances in witness[] and returns how many
+        // entries it touched
+        private int witnessSearch(int u,int v,double limit,int budget,int left){
+            int seen=0, settled=0;
+            witness[u]=0; touched[seen++]=u; wpq.update(u,0);
+            while(!wpq.isEmpty()&&wpq.peekKey()<=limit&&settled++<budget){
+                int c=wpq.poll();
+                if(target[c]==stamp&&--left==0) break;
+                for(int i=0;i<deg[c];i++){
+                    int x=nbr[c][i]; if(x==v) continue;
+                    double nd=witness[c]+wt[c][i];
+                    if(nd<witness[x]){
+                        if(witness[x]==Double.MAX_VALUE) touched[seen++]=x;
+                        witness[x]=nd; wpq.update(x,nd);
+                    }
+                }
+            }
+            wpq.clear();
+            return seen;
+        }
+
+        // Node ids from s to t along real roads, or null if there is no route
+        synchronized List<Integer> route(int s,int t,RoadIndex.Search q){
+            int seen=0;
+            df[s]=0; hf.update(s,0); reached[seen++]=s;
+            db[t]=0; hb.update(t,0); if(t!=s) reached[seen++]=t;
+            double best=Double.MAX_VALUE; int meet=-1;
+            while(true){
+                boolean f=!hf.isEmpty()&&hf.peekKey()<best, b=!hb.isEmpty()&&hb.peekKey()<best;
+                if(!f&&!b) break;
+                boolean fwd=f&&(!b||hf.peekKey()<=hb.peekKey());
+                IndexedHeap pq=fwd?hf:hb;
+                double[] d=fwd?df:db, other=fwd?db:df;
+                int[] prev=fwd?pf:pb;
+                int c=pq.poll(); q.settled++;
+                if(other[c]<Double.MAX_VALUE&&d[c]+other[c]<best){ best=d[c]+other[c]; meet=c; }
+                for(int i=upStart[c];i<upStart[c+1];i++){
+                    int v=upHead[i];
+                    double nd=d[c]+upWeight[i];
+                    if(nd<d[v]){
+                        if(df[v]==Double.MAX_VALUE&&db[v]==Double.MAX_VALUE) reached[seen++]=v;
+                        d[v]=nd; prev[v]=i; pq.update(v,nd);
+                    }
+                }
+            }
+            List<Integer> path=null;
+            if(meet>=0){
+                Deque<Integer> climb=new ArrayDeque<>();
+                for(int v=meet;v!=s;v=other(pf[v],v)) climb.push(pf[v]);
+                path=new ArrayList<>();
+                path.add(s);
+                for(int v=s;!climb.isEmpty();){ int e=climb.pop(); unpack(v,e,path); v=other(e,v); }
+                for(int v=meet;v!=t;){ int e=pb[v]; unpack(v,e,path); v=other(e,v); }
+            }
+            hf.clear(); hb.clear();
+            for(int k=0;k<seen;k++){ int v=reached[k]; df[v]=db[v]=Double.MAX_VALUE; pf[v]=pb[v]=-1; }
+            return path;
+        }
+
+        private int other(int e,int v){ return upTail[e]==v?upHead[e]:upTail[e]; }
+
+        // Appends the nodes after `from` along upward edge e, replacing each
+        // shortcut by its two halves, which hang off the middle node
+        private void unpack(int from,int e,List<Integer> path){
+            Deque<int[]> todo=new ArrayDeque<>();
+            todo.push(new int[]{from,e});
+            while(!todo.isEmpty()){
+                int[] step=todo.pop();
+                int a=step[0], b=other(step[1],a), m=upMid[step[1]];
+                if(m<0){ path.add(b); continue; }
+                todo.push(new int[]{m,edge(m,b)});
+                todo.push(new int[]{a,edge(m,a)});
+            }
+        }
+
+        // The upward edge from m to x; m was contracted before x
+        private int edge(int m,int x){
+            for(int i=upStart[m];i<upStart[m+1];i++) if(upHead[i]==x) return i;
+            throw new IllegalStateException("missing shortcut half");
+        }
+    }
+
+    // ── Indexed Heap ──────────────────────────────────────────────────────────
+    // Binary min-heap of node ids on int arrays with a position index, so the
+    // queued entry of a node is found in O(1) instead of PriorityQueue's
+    // linear remove(). A key update is removeAt + insert at the same
+    // O(log n) cost; the sift rules are those of java.util.PriorityQueue, so
+    // equal-cost ties pop, and routes come out, exactly as they used to.
+    static class IndexedHeap {
+        private final int[] heap, pos;   // pos[v] = index of v in heap, -1 if absent
+        private final double[] key;
+        private int size;
+
+        IndexedHeap(int n){
+            heap=new int[n]; pos=new int[n]; key=new double[n];
+            Arrays.fill(pos,-1);
+        }
+
+        boolean isEmpty(){ return size==0; }
+
+        double peekKey(){ return key[heap[0]]; }
+
+        void clear(){
+            for(int i=0;i<size;i++) pos[heap[i]]=-1;
+            size=0;
+        }
+
+        // Inserts v with key k, first removing it if it is already queued
+        void update(int v,double k){
+            key[v]=k;
+            if(pos[v]>=0) removeAt(pos[v]);
+            siftUp(size++,v);
+        }
+
+        int poll(){
+            int top=heap[0];
+            pos[top]=-1;
+            int last=heap[--size];
+            if(size>0) siftDown(0,last);
+            return top;
+        }
+
+        private void removeAt(int i){
+            pos[heap[i]]=-1;
+            int s=--size;
+            if(s==i) return;
+            int moved=heap[s];
+            siftDown(i,moved);
+            if(heap[i]==moved) siftUp(i,moved);
+        }
+
+        private void siftUp(int i,int v){
+            while(i>0){
+                int p=(i-1)>>>1, e=heap[p];
+                if(Double.compare(key[v],key[e])>=0) break;
+                heap[i]=e; pos[e]=i; i=p;
+            }
+            heap[i]=v; pos[v]=i;
+        }
+
+        private void siftDown(int i,int v){
+            int half=size>>>1;
+            while(i<half){
+                int c=2*i+1, r=c+1;
+                if(r<size&&Double.compare(key[heap[c]],key[heap[r]])>0) c=r;
+                if(Double.compare(key[v],key[heap[c]])<=0) break;
+                heap[i]=heap[c]; pos[heap[i]]=i; i=c;
+            }
+            heap[i]=v; pos[v]=i;
+        }
     }
 
     // ── Car Animation ─────────────────────────────────────────────────────────
@@ -299,7 +1099,7 @@ public class MIDTERM_LAB2_PARANE extends JFrame {
         sub.setFont(new Font("Monospaced",Font.PLAIN,11)); sub.setForeground(TEXT_DIM);
         left.add(row1); left.add(Box.createVerticalStrut(3)); left.add(sub);
 
-        JButton uploadBtn=makeBtn("⬆  UPLOAD CSV",ACCENT_AMBER,new Color(14,17,22));
+        uploadBtn=makeBtn("⬆  UPLOAD CSV",ACCENT_AMBER,new Color(14,17,22));
         uploadBtn.addActionListener(e->openCSVChooser());
 
         csvBadge=new JLabel("  NO FILE LOADED  ");
@@ -329,31 +1129,36 @@ public class MIDTERM_LAB2_PARANE extends JFrame {
         fc.setAcceptAllFileFilterUsed(false);
         if(fc.showOpenDialog(this)!=JFileChooser.APPROVE_OPTION) return;
         File file=fc.getSelectedFile();
-        statusLabel.setText("Loading "+file.getName()+"…");
-        if(loadCSV(file.getAbsolutePath())){
-            loadedFileName=file.getName();
-            csvBadge.setText("  "+loadedFileName+"  |  "+nodes.size()+" NODES  ");
-            csvBadge.setForeground(ACCENT_GREEN);
-            csvBadge.setBorder(BorderFactory.createCompoundBorder(
-                BorderFactory.createLineBorder(ACCENT_GREEN,1),new EmptyBorder(5,10,5,10)));
-            csvBadge.setBackground(new Color(10,30,18));
-            mapTitleLabel.setText("  ROAD MAP  ──  "+loadedFileName.toUpperCase());
-            refreshCombos();
-            resultArea.setForeground(ACCENT_GREEN);
-            resultArea.setText(
-                "  ✔  CSV LOADED\n"+
-                "  ─────────────────────────\n"+
-                "  File  : "+loadedFileName+"\n"+
-                "  Nodes : "+nodes.size()+"\n"+
-                "  Roads : "+(allEdges.size()/2)+"\n\n"+
-                "  Select DEPARTURE / DESTINATION\n"+
-                "  nodes and click\n"+
-                "  [ FIND SHORTEST ROUTE ]\n");
-            statusLabel.setText("✔  "+loadedFileName+"  ─  "+nodes.size()+" nodes, "+(allEdges.size()/2)+" roads");
-            mapPanel.repaint();
-        } else {
-            statusLabel.setText("✗  Failed: "+file.getName());
-        }
+        statusLabel.setText("Loading "+file.getName()+" and building route hierarchies…");
+        uploadBtn.setEnabled(false); findBtn.setEnabled(false);
+        new CsvLoader(file).execute();
+    }
+
+    private void showLoaded(String fileName){
+        loadedFileName=fileName;
+        csvBadge.setText("  "+loadedFileName+"  |  "+nodes.size()+" NODES  ");
+        csvBadge.setForeground(ACCENT_GREEN);
+        csvBadge.setBorder(BorderFactory.createCompoundBorder(
+            BorderFactory.createLineBorder(ACCENT_GREEN,1),new EmptyBorder(5,10,5,10)));
+        csvBadge.setBackground(new Color(10,30,18));
+        mapTitleLabel.setText("  ROAD MAP  ──  "+loadedFileName.toUpperCase());
+        refreshCombos();
+        int shortcuts=0; long prep=0;
+        for(int c=0;c<3;c++){ shortcuts+=roadIndex.hierarchy(c).shortcuts; prep+=roadIndex.hierarchy(c).buildNanos; }
+        resultArea.setForeground(ACCENT_GREEN);
+        resultArea.setText(
+            "  ✔  CSV LOADED\n"+
+            "  ─────────────────────────\n"+
+            "  File  : "+loadedFileName+"\n"+
+            "  Nodes : "+nodes.size()+"\n"+
+            "  Roads : "+(allEdges.size()/2)+"\n"+
+            String.format("  Hierarchy : %,d shortcuts%n",shortcuts)+
+            String.format("  Prep time : %.1f ms%n%n",prep/1e6)+
+            "  Select DEPARTURE / DESTINATION\n"+
+            "  nodes and click\n"+
+            "  [ FIND SHORTEST ROUTE ]\n");
+        statusLabel.setText("✔  "+loadedFileName+"  ─  "+nodes.size()+" nodes, "+(allEdges.size()/2)+" roads");
+        mapPanel.repaint();
     }
 
     private void refreshCombos(){
@@ -396,13 +1201,16 @@ public class MIDTERM_LAB2_PARANE extends JFrame {
         fromCombo    =roadCombo(new String[]{"── upload CSV first ──"});
         toCombo      =roadCombo(new String[]{"── upload CSV first ──"});
         criteriaCombo=roadCombo(new String[]{"Distance","Time","Fuel"});
+        engineCombo  =roadCombo(RoadIndex.ENGINES);
         card.add(dimLbl("DEPARTURE"));  card.add(Box.createVerticalStrut(4)); card.add(fromCombo);
         card.add(Box.createVerticalStrut(8));
         card.add(dimLbl("DESTINATION")); card.add(Box.createVerticalStrut(4)); card.add(toCombo);
         card.add(Box.createVerticalStrut(8));
         card.add(dimLbl("OPTIMIZE BY")); card.add(Box.createVerticalStrut(4)); card.add(criteriaCombo);
+        card.add(Box.createVerticalStrut(8));
+        card.add(dimLbl("SEARCH ENGINE")); card.add(Box.createVerticalStrut(4)); card.add(engineCombo);
         card.add(Box.createVerticalStrut(14));
-        JButton findBtn=makeBtn("FIND SHORTEST ROUTE",ACCENT_GREEN,new Color(8,20,12));
+        findBtn=makeBtn("FIND SHORTEST ROUTE",ACCENT_GREEN,new Color(8,20,12));
         findBtn.setMaximumSize(new Dimension(Integer.MAX_VALUE,46));
         findBtn.addActionListener(e->runDijkstra());
         card.add(findBtn);
@@ -491,12 +1299,13 @@ public class MIDTERM_LAB2_PARANE extends JFrame {
         String from=(String)fromCombo.getSelectedItem();
         String to=(String)toCombo.getSelectedItem();
         String crit=(String)criteriaCombo.getSelectedItem();
+        String engine=(String)engineCombo.getSelectedItem();
         if(from==null||to==null||from.equals(to)){
             resultArea.setForeground(ACCENT_RED);
             resultArea.setText("  Departure and destination\n  must be different nodes.");
             return;
         }
-        Object[] res=dijkstra(from,to,crit);
+        Object[] res=dijkstra(from,to,crit,engine);
         if(res==null){
             resultArea.setForeground(ACCENT_RED);
             resultArea.setText("  No route found\n  "+from+" to "+to);
@@ -504,6 +1313,7 @@ public class MIDTERM_LAB2_PARANE extends JFrame {
         }
         currentPath=(List<String>)res[0];
         double tD=(double)res[1],tT=(double)res[2],tF=(double)res[3];
+        RoadIndex.Search search=(RoadIndex.Search)res[4];
 
         StringBuilder sb=new StringBuilder();
         sb.append("  SHORTEST ROUTE FOUND\n");
@@ -537,12 +1347,27 @@ public class MIDTERM_LAB2_PARANE extends JFrame {
         sb.append(String.format("  │  Time     : %.0f mins%n",tT));
         sb.append(String.format("  │  Fuel     : %.1f L%n",   tF));
         sb.append(String.format("  │  Stops    : %d cities%n",currentPath.size()));
+        sb.append("  └────────────────────────────────────\n\n");
+        sb.append("  SEARCH\n");
+        sb.append("  ┌────────────────────────────────────\n");
+        sb.append(String.format("  │  Engine   : %s%n",engine));
+        sb.append(String.format("  │  Settled  : %,d of %,d nodes%n",search.settled,nodes.size()));
+        sb.append(String.format("  │  Latency  : %.3f ms%n",search.nanos/1e6));
+        if(engine.equals(RoadIndex.ENGINES[2])&&search.prepNanos>0)
+            sb.append(String.format("  │  Landmarks: built in %.1f ms%n",search.prepNanos/1e6));
+        if(engine.equals(RoadIndex.ENGINES[3])){
+            Hierarchy h=roadIndex.hierarchy(RoadIndex.criterion(crit));
+            sb.append(String.format("  │  Shortcuts: %,d (prep %.1f ms)%n",h.shortcuts,h.buildNanos/1e6));
+            sb.append(String.format("  │  Speedup  : %.1fx vs Dijkstra%n",h.speedup));
+            sb.append(String.format("  │             (median of %d queries)%n",RoadIndex.SPEEDUP_SAMPLE));
+        }
         sb.append("  └────────────────────────────────────\n");
 
         resultArea.setForeground(new Color(170,255,200));
         resultArea.setText(sb.toString());
         resultArea.setCaretPosition(0);
-        statusLabel.setText("Route: "+String.join(" >> ",currentPath));
+        statusLabel.setText("Route: "+String.join(" >> ",currentPath)
+            +String.format("   ·   %s: %,d settled, %.3f ms",engine,search.settled,search.nanos/1e6));
         mapPanel.repaint();
         startCarAnimation();
     }
@@ -1,13 +1,23 @@
 import java.awt.*;
 import java.awt.event.*;
 import java.io.*;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.StandardOpenOption;
 import java.util.*;
 import java.util.List;
+import java.util.concurrent.CancellationException;
 import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
 import javax.swing.*;
 import javax.swing.border.*;
 import javax.swing.table.DefaultTableCellRenderer;
+import javax.swing.table.AbstractTableModel;
 import javax.swing.table.DefaultTableModel;
+import javax.swing.table.TableModel;
 import javax.swing.table.JTableHeader;
 
 public class SortingStressTest extends JFrame {
@@ -17,6 +27,7 @@ public class SortingStressTest extends JFrame {
     private JComboBox<String> columnCombo;
     private JSpinner nSpinner;
     private JButton startButton;
+    private JButton stopButton;
     private JProgressBar progressBar;
     private JLabel loadTimeLabel;
     private JLabel sortTimeLabel;
@@ -24,6 +35,7 @@ public class SortingStressTest extends JFrame {
     private JPanel bottom; // made field so we can update title dynamically
 
     private File csvFile;
+    private SortTask currentTask;
 
     // Design colors
     private static final Color PRIMARY_COLOR = new Color(63, 81, 181);
@@ -104,13 +116,16 @@ public class SortingStressTest extends JFrame {
         optionsTitle.setFont(new Font("Segoe UI", Font.BOLD, 14));
         optionsTitle.setForeground(TEXT_PRIMARY);
         
-        algorithmCombo = createStyledComboBox(new String[] {"Bubble Sort", "Insertion Sort", "Merge Sort"});
+        algorithmCombo = createStyledComboBox(SortEngine.ALGORITHMS);
         columnCombo = createStyledComboBox(new String[] {"ID", "FirstName", "LastName"});
         nSpinner = new JSpinner(new SpinnerNumberModel(1000, 1, Integer.MAX_VALUE, 1000));
         styleSpinner(nSpinner);
         
         startButton = createStyledButton("▶ Start Test", SUCCESS_COLOR);
         startButton.setFont(new Font("Segoe UI", Font.BOLD, 13));
+        stopButton = createStyledButton("■ Stop", ACCENT_COLOR);
+        stopButton.setFont(new Font("Segoe UI", Font.BOLD, 13));
+        stopButton.setEnabled(false);
         
         JPanel configPanel = new JPanel(new BorderLayout());
         configPanel.setOpaque(false);
@@ -122,6 +137,7 @@ public class SortingStressTest extends JFrame {
         configOptions.add(createLabeledComponent("Sort Column:", columnCombo));
         configOptions.add(createLabeledComponent("Number of Rows:", nSpinner));
         configOptions.add(startButton);
+        configOptions.add(stopButton);
         
         configPanel.add(configOptions, BorderLayout.CENTER);
         top.add(configPanel, BorderLayout.SOUTH);
@@ -182,7 +198,6 @@ public class SortingStressTest extends JFrame {
         // Initialize with styled table
         resultTable = new JTable(new DefaultTableModel(new Object[]{"Value"}, 0));
         styleTable(resultTable);
-        resultTable.setAutoCreateRowSorter(true);
         
         JScrollPane scroll = new JScrollPane(resultTable);
         scroll.setBorder(new LineBorder(BORDER_COLOR, 1, true));
@@ -196,6 +211,9 @@ public class SortingStressTest extends JFrame {
         // Event handlers
         chooseFileButton.addActionListener(e -> chooseFile());
         startButton.addActionListener(e -> startProcess());
+        stopButton.addActionListener(e -> {
+            if (currentTask != null) currentTask.stop();
+        });
 
         // Double click table row to copy content
         resultTable.addMouseListener(new MouseAdapter() {
@@ -204,7 +222,7 @@ public class SortingStressTest extends JFrame {
                     int r = resultTable.getSelectedRow();
                     if (r >= 0) {
                         int modelRow = resultTable.convertRowIndexToModel(r);
-                        DefaultTableModel model = (DefaultTableModel) resultTable.getModel();
+                        TableModel model = resultTable.getModel();
                         int cols = model.getColumnCount();
                         StringBuilder sb = new StringBuilder();
                         for (int c = 0; c < cols; c++) {
@@ -336,8 +354,15 @@ public class SortingStressTest extends JFrame {
         String alg = (String) algorithmCombo.getSelectedItem();
         String column = (String) columnCombo.getSelectedItem();
 
+        // LSD radix works on the 32-bit id keys only, MSD radix on the name columns
+        String unsupported = SortEngine.unsupported(alg, column);
+        if (unsupported != null) {
+            JOptionPane.showMessageDialog(this, unsupported, "Unsupported column", JOptionPane.WARNING_MESSAGE);
+            return;
+        }
+
         // Warn for O(n^2)
-        if ((alg.equals("Bubble Sort") || alg.equals("Insertion Sort")) && n > 30000) {
+        if (SortEngine.isQuadratic(alg) && n > 30000) {
             int choice = JOptionPane.showConfirmDialog(this,
                     "Selected algorithm is O(n^2). Sorting " + n + " rows may take a very long time. Continue?",
                     "Potentially long operation", JOptionPane.YES_NO_OPTION, JOptionPane.WARNING_MESSAGE);
@@ -363,51 +388,46 @@ public class SortingStressTest extends JFrame {
         sortTimeLabel.setText("⚡ Sort time: -");
 
         SortTask task = new SortTask(csvFile, n, alg, column);
+        currentTask = task;
+        stopButton.setEnabled(true);
         task.execute();
     }
 
     /**
      * Update table to show ONLY the selected column's values (in sorted order).
+     * Nothing is copied: the model reads cells straight from the table as
+     * they scroll into view, and the sorter reuses the engine's order.
      */
-    private void updateResultTable(List<Record> list, String column) {
-        String[] cols = new String[] { column };
-        Object[][] data = new Object[list.size()][1];
-        for (int i = 0; i < list.size(); i++) {
-            Record r = list.get(i);
-            switch (column) {
-                case "ID":
-                    data[i][0] = r.id;
-                    break;
-                case "FirstName":
-                    data[i][0] = r.firstName;
-                    break;
-                case "LastName":
-                    data[i][0] = r.lastName;
-                    break;
-                default:
-                    data[i][0] = "";
-            }
-        }
-        DefaultTableModel model = new DefaultTableModel(data, cols) {
-            // make cells non-editable
-            @Override
-            public boolean isCellEditable(int row, int column) {
-                return false;
-            }
-        };
+    private void updateResultTable(RecordTable table, int[] order, String column) {
+        SortedRowsModel model = new SortedRowsModel(table, order, column);
+        resultTable.setRowSorter(null);
         resultTable.setModel(model);
+        resultTable.setRowSorter(new EngineOrderSorter(model));
         styleTable(resultTable);
-        resultTable.setAutoCreateRowSorter(true);
     }
 
-    private class SortTask extends SwingWorker<List<Record>, Integer> {
+    private class SortTask extends SwingWorker<int[], Integer> {
         private final File file;
         private final int n;
         private final String algorithm;
         private final String column;
+        private RecordTable table;
         private long loadMillis = -1;
+        private long loadNanos = -1;
+        private long loadBytes = 0;
         private long sortMillis = -1;
+        private long keyNanos = -1; // building the primitive sort keys, reported apart from the sort
+        private long gcMillis = 0;
+        private long baselineMillis = -1; // sequential merge sort on the same data, for the speedup readout
+        private long allocBytes = -1;
+        private AdaptiveMergeSort.RunStats runStats = null;
         private Exception error = null;
+        private boolean stopped = false;
+        private volatile long etaMillis = -1;
+        private final SortProgress progress = new SortProgress((percent, eta) -> {
+            etaMillis = eta;
+            publish(percent);
+        });
 
         public SortTask(File file, int n, String algorithm, String column) {
             this.file = file;
@@ -417,205 +437,1934 @@ public class SortingStressTest extends JFrame {
         }
 
         @Override
-        protected List<Record> doInBackground() {
+        protected int[] doInBackground() {
             try {
                 // 1) Load N rows and measure time
                 long t0 = System.nanoTime();
-                List<Record> data = loadCsv(file, n);
+                MappedCsvLoader loader = new MappedCsvLoader();
+                table = loader.load(file, n);
                 long t1 = System.nanoTime();
-                loadMillis = (t1 - t0) / 1_000_000;
-
-                if (data.isEmpty()) {
-                    return data;
-                }
+                loadNanos = t1 - t0;
+                loadMillis = loadNanos / 1_000_000;
+                loadBytes = loader.bytesScanned;
+                progress.checkCancelled();
 
-                // Prepare comparator
-                Comparator<Record> cmp;
-                switch (column) {
-                    case "ID":
-                        cmp = Comparator.comparingInt(r -> r.id);
-                        break;
-                    case "FirstName":
-                        cmp = Comparator.comparing(r -> r.firstName, String.CASE_INSENSITIVE_ORDER);
-                        break;
-                    case "LastName":
-                        cmp = Comparator.comparing(r -> r.lastName, String.CASE_INSENSITIVE_ORDER);
-                        break;
-                    default:
-                        cmp = Comparator.comparingInt(r -> r.id);
+                // Sorts permute row numbers; the columns themselves never move
+                int[] order = table.identityOrder();
+                if (order.length == 0) {
+                    return order;
                 }
 
                 // 2) Sort and measure time
-                long st0 = System.nanoTime();
-                progressBar.setIndeterminate(false);
+                // Parallel sorts allocate on pool threads, so count every thread for those
+                boolean parallel = algorithm.equals("Parallel Merge Sort");
+                int[] baseline = parallel ? order.clone() : null;
+                boolean indeterminate = !SortEngine.isQuadratic(algorithm);
+                SwingUtilities.invokeLater(() -> progressBar.setIndeterminate(indeterminate));
+                long gc0 = gcTimeMillis();
+                long alloc0 = allocatedBytes(parallel);
 
-                if (algorithm.equals("Bubble Sort")) {
-                    bubbleSort(data, cmp);
-                } else if (algorithm.equals("Insertion Sort")) {
-                    insertionSort(data, cmp);
-                } else { // Merge Sort
-                    progressBar.setIndeterminate(true);
-                    List<Record> sorted = mergeSort(data, cmp);
-                    data = sorted;
-                    progressBar.setIndeterminate(false);
-                    setProgress(100);
-                }
+                SortEngine engine = new SortEngine(algorithm, column, progress);
+                long kt0 = System.nanoTime();
+                engine.buildKeys(table, order);
+                keyNanos = System.nanoTime() - kt0;
+                progress.checkCancelled();
+
+                long st0 = System.nanoTime();
+                engine.sort(table, order);
+                // A Stop that lands after the kernel's last check must not show a finished sort
+                progress.checkCancelled();
 
                 long st1 = System.nanoTime();
+                runStats = engine.runStats;
                 sortMillis = (st1 - st0) / 1_000_000;
-                return data;
+                allocBytes = allocDelta(alloc0, allocatedBytes(parallel));
+                gcMillis = gcTimeMillis() - gc0;
+
+                if (parallel && !progress.isCancelled()) {
+                    // Same input through the sequential kernel, outside the measured window
+                    int[] baselineKeys = engine.idKeys != null ? table.idKeys(baseline) : null;
+                    long bt0 = System.nanoTime();
+                    if (baselineKeys != null) {
+                        IntKeySort.mergeSort(baselineKeys, baseline);
+                    } else {
+                        MergeSortKernel.sort(baseline, engine.nameKeys);
+                    }
+                    baselineMillis = (System.nanoTime() - bt0) / 1_000_000;
+                }
+                return order;
+            } catch (CancellationException ex) {
+                stopped = true;
+                return new int[0];
             } catch (Exception ex) {
                 error = ex;
-                return Collections.emptyList();
+                return new int[0];
             }
         }
 
-        private List<Record> loadCsv(File file, int maxRows) throws IOException {
-            // initialize with expected size to reduce reallocation
-            List<Record> list = new ArrayList<>(Math.min(Math.max(100, maxRows), maxRows));
-            try (BufferedReader br = new BufferedReader(new FileReader(file))) {
-                String line;
-                // Assume header on first line. If not, this will skip first record.
-                boolean first = true;
-                while ((line = br.readLine()) != null && list.size() < maxRows) {
-                    if (first) { first = false; continue; }
-                    // Basic CSV split by comma. Assumes commas not embedded in fields.
-                    String[] parts = line.split(",", -1);
-                    if (parts.length < 3) continue;
-                    try {
-                        int id = Integer.parseInt(parts[0].trim());
-                        String fn = parts[1].trim();
-                        String ln = parts[2].trim();
-                        list.add(new Record(id, fn, ln));
-                    } catch (NumberFormatException nfe) {
-                        // skip malformed line
+        // Called from the Stop button; the kernel notices at its next progress check
+        void stop() {
+            progress.cancel();
+            stopButton.setEnabled(false);
+        }
+
+        @Override
+        protected void process(List<Integer> chunks) {
+            if (!chunks.isEmpty() && !isDone()) {
+                int p = chunks.get(chunks.size() - 1);
+                progressBar.setValue(p);
+                long eta = etaMillis;
+                progressBar.setString(eta < 0 ? p + "%" : p + "% (ETA " + formatDuration(eta) + ")");
+            }
+        }
+
+        @Override
+        protected void done() {
+            startButton.setEnabled(true);
+            stopButton.setEnabled(false);
+            currentTask = null;
+            progressBar.setIndeterminate(false);
+            progressBar.setString(null);
+            try {
+                int[] result = get();
+                if (stopped) {
+                    progressBar.setValue(0);
+                    progressBar.setString("Stopped");
+                    sortTimeLabel.setText(String.format("⚡ Sort time: stopped after %d ms", progress.elapsedMillis()));
+                    return;
+                }
+                if (error != null) {
+                    JOptionPane.showMessageDialog(SortingStressTest.this, "Error: " + error.getMessage(), "Error", JOptionPane.ERROR_MESSAGE);
+                    return;
+                }
+                double loadSecs = Math.max(loadNanos, 1) / 1e9;
+                loadTimeLabel.setText(String.format("⏱️ Load time: %d ms (loaded %d rows, %,.0f rows/s, %.1f MB/s, %.1f MB in memory)",
+                        loadMillis, result.length, result.length / loadSecs, loadBytes / 1e6 / loadSecs,
+                        table.footprintBytes() / 1e6));
+                String sortText = String.format("⚡ Sort time: %d ms + %.1f ms key build (GC %d ms, allocated %s)",
+                        sortMillis, keyNanos / 1e6, gcMillis, allocBytes < 0 ? "n/a" : formatBytes(allocBytes));
+                if (baselineMillis >= 0) {
+                    sortText += String.format(" | %.2fx vs sequential merge (%d ms), %d threads",
+                            baselineMillis / (double) Math.max(sortMillis, 1), baselineMillis,
+                            ParallelMergeSort.POOL.getParallelism());
+                }
+                if (runStats != null) {
+                    sortText += " | " + runStats;
+                }
+                sortTimeLabel.setText(sortText);
+                updateResultTable(table, result, column);
+                progressBar.setValue(100);
+            } catch (InterruptedException | ExecutionException e) {
+                JOptionPane.showMessageDialog(SortingStressTest.this, "Failed: " + e.getMessage(), "Error", JOptionPane.ERROR_MESSAGE);
+            }
+        }
+    }
+
+    private static long gcTimeMillis() {
+        long total = 0;
+        for (java.lang.management.GarbageCollectorMXBean gc : java.lang.management.ManagementFactory.getGarbageCollectorMXBeans()) {
+            total += Math.max(0, gc.getCollectionTime());
+        }
+        return total;
+    }
+
+    /**
+     * Bytes allocated so far by the calling thread (or by every live thread),
+     * or -1 when the JVM does not expose per-thread allocation counters.
+     */
+    private static long allocatedBytes(boolean allThreads) {
+        java.lang.management.ThreadMXBean mx = java.lang.management.ManagementFactory.getThreadMXBean();
+        if (!(mx instanceof com.sun.management.ThreadMXBean)) return -1;
+        com.sun.management.ThreadMXBean tmx = (com.sun.management.ThreadMXBean) mx;
+        if (!tmx.isThreadAllocatedMemorySupported() || !tmx.isThreadAllocatedMemoryEnabled()) return -1;
+        if (!allThreads) return tmx.getThreadAllocatedBytes(Thread.currentThread().getId());
+        long total = 0;
+        for (long b : tmx.getThreadAllocatedBytes(tmx.getAllThreadIds())) {
+            if (b > 0) total += b;
+        }
+        return total;
+    }
+
+    private static long allocDelta(long before, long after) {
+        return (before < 0 || after < 0) ? -1 : Math.max(0, after - before);
+    }
+
+    // Coarse remaining-time text for the progress bar
+    private static String formatDuration(long millis) {
+        long secs = millis / 1000;
+        if (secs < 1) return "<1 s";
+        if (secs < 60) return secs + " s";
+        if (secs < 3600) return String.format("%d min %02d s", secs / 60, secs % 60);
+        return String.format("%d h %02d min", secs / 3600, (secs / 60) % 60);
+    }
+
+    private static String formatBytes(long bytes) {
+        if (bytes < 1024) return bytes + " B";
+        if (bytes < 1024 * 1024) return String.format("%.1f KB", bytes / 1024.0);
+        return String.format("%.1f MB", bytes / (1024.0 * 1024.0));
+    }
+
+    public static void main(String[] args) {
+        if (args.length > 0 && args[0].equals("--bench")) {
+            System.exit(BenchmarkRunner.run(Arrays.copyOfRange(args, 1, args.length)));
+        }
+        SwingUtilities.invokeLater(() -> {
+            SortingStressTest s = new SortingStressTest();
+            s.setVisible(true);
+        });
+    }
+
+    /**
+     * The sort pipeline without any Swing: builds the primitive keys for the
+     * chosen column and dispatches to the selected kernel. Used by the GUI's
+     * SortTask and by the headless {@link BenchmarkRunner}. The quadratic
+     * kernels report to a {@link SortProgress}; the others only poll it for
+     * Stop, once per large subrange, merge or radix pass.
+     */
+    static final class SortEngine {
+        static final String[] ALGORITHMS = {"Bubble Sort", "Insertion Sort", "Merge Sort", "Adaptive TimSort",
+                "Parallel Merge Sort", "Radix Sort (LSD)", "MSD Radix (strings)"};
+        static final String[] COLUMNS = {"ID", "FirstName", "LastName"};
+
+        private final String algorithm;
+        private final String column;
+        private final SortProgress progress;
+        int[] idKeys;
+        NameKeys nameKeys;
+        AdaptiveMergeSort.RunStats runStats; // set by Adaptive TimSort only
+
+        SortEngine(String algorithm, String column) {
+            this(algorithm, column, new SortProgress(null));
+        }
+
+        SortEngine(String algorithm, String column, SortProgress progress) {
+            this.algorithm = algorithm;
+            this.column = column;
+            this.progress = progress;
+        }
+
+        /** Null when the algorithm can sort the column, otherwise the reason it cannot. */
+        static String unsupported(String algorithm, String column) {
+            if (algorithm.equals("Radix Sort (LSD)") && !column.equals("ID")) {
+                return "Radix Sort (LSD) sorts 32-bit integer keys. Choose the ID column.";
+            }
+            if (algorithm.equals("MSD Radix (strings)") && column.equals("ID")) {
+                return "MSD Radix (strings) sorts the name columns. Choose FirstName or LastName.";
+            }
+            return null;
+        }
+
+        static boolean isQuadratic(String algorithm) {
+            return algorithm.equals("Bubble Sort") || algorithm.equals("Insertion Sort");
+        }
+
+        // Keys are derived once per run, before the sort clock starts. The adaptive
+        // sort compares ids through the table, since its runs are found on row order
+        void buildKeys(RecordTable table, int[] order) {
+            idKeys = column.equals("ID") && !algorithm.equals("Adaptive TimSort") ? table.idKeys(order) : null;
+            nameKeys = column.equals("ID") || algorithm.equals("MSD Radix (strings)")
+                    ? null : NameKeys.build(table, column.equals("LastName"));
+        }
+
+        void sort(RecordTable table, int[] order) {
+            progress.begin();
+            if (algorithm.equals("Adaptive TimSort")) {
+                runStats = AdaptiveMergeSort.sort(order, column.equals("ID") ? table::compareId : nameKeys, progress);
+            } else if (idKeys != null) {
+                sortByIdKeys(idKeys, order);
+            } else if (algorithm.equals("MSD Radix (strings)")) {
+                StringRadixSort.sort(order, table, column.equals("LastName"), progress);
+            } else {
+                sortByComparator(order, nameKeys);
+            }
+        }
+
+        /**
+         * ID column: copy the ids into a primitive key array that travels with
+         * the row permutation, so the kernels compare ints directly instead of
+         * going through a comparator and the table for every comparison.
+         */
+        void sortByIdKeys(int[] keys, int[] order) {
+            switch (algorithm) {
+                case "Bubble Sort":
+                    bubbleSortKeys(keys, order);
+                    break;
+                case "Insertion Sort":
+                    insertionSortKeys(keys, order);
+                    break;
+                case "Parallel Merge Sort":
+                    IntKeySort.parallelMergeSort(keys, order, progress);
+                    break;
+                case "Radix Sort (LSD)":
+                    IntKeySort.radixSort(keys, order, progress);
+                    break;
+                default:
+                    IntKeySort.mergeSort(keys, order, progress);
+            }
+        }
+
+        // Name columns keep the comparator kernels; cmp is always a NameKeys, so call sites stay monomorphic
+        void sortByComparator(int[] order, RowComparator cmp) {
+            switch (algorithm) {
+                case "Bubble Sort":
+                    bubbleSort(order, cmp);
+                    break;
+                case "Insertion Sort":
+                    insertionSort(order, cmp);
+                    break;
+                case "Parallel Merge Sort":
+                    ParallelMergeSort.sort(order, cmp, progress);
+                    break;
+                default:
+                    MergeSortKernel.sort(order, cmp, progress);
+            }
+        }
+
+        private void bubbleSortKeys(int[] keys, int[] perm) {
+            int n = keys.length;
+            for (int i = 0; i < n - 1; i++) {
+                boolean swapped = false;
+                for (int j = 0; j < n - 1 - i; j++) {
+                    if (keys[j] > keys[j + 1]) {
+                        int tk = keys[j];
+                        keys[j] = keys[j + 1];
+                        keys[j + 1] = tk;
+                        int tp = perm[j];
+                        perm[j] = perm[j + 1];
+                        perm[j + 1] = tp;
+                        swapped = true;
                     }
                 }
+                progress.update(1 - SortProgress.quadraticWork(n - 1 - i, n));
+                if (!swapped) break;
+            }
+        }
+
+        private void insertionSortKeys(int[] keys, int[] perm) {
+            int n = keys.length;
+            for (int i = 1; i < n; i++) {
+                int key = keys[i];
+                int row = perm[i];
+                int j = i - 1;
+                while (j >= 0 && keys[j] > key) {
+                    keys[j + 1] = keys[j];
+                    perm[j + 1] = perm[j];
+                    j--;
+                }
+                keys[j + 1] = key;
+                perm[j + 1] = row;
+                if ((i & SortProgress.CHECK_MASK) == 0) {
+                    progress.update(SortProgress.quadraticWork(i, n));
+                }
             }
-            return list;
         }
 
-        private void bubbleSort(List<Record> data, Comparator<Record> cmp) {
-            int n = data.size();
-            // Convert to array for faster swaps
-            Record[] arr = data.toArray(new Record[0]);
+        private void bubbleSort(int[] arr, RowComparator cmp) {
+            int n = arr.length;
             for (int i = 0; i < n - 1; i++) {
                 boolean swapped = false;
                 for (int j = 0; j < n - 1 - i; j++) {
                     if (cmp.compare(arr[j], arr[j + 1]) > 0) {
-                        Record tmp = arr[j];
+                        int tmp = arr[j];
                         arr[j] = arr[j + 1];
                         arr[j + 1] = tmp;
                         swapped = true;
                     }
                 }
-                int progress = (int) (((i + 1) / (double) n) * 100);
-                setProgress(progress);
+                progress.update(1 - SortProgress.quadraticWork(n - 1 - i, n));
                 if (!swapped) break;
             }
-            // copy back to list
-            data.clear();
-            data.addAll(Arrays.asList(arr));
-            setProgress(100);
         }
 
-        private void insertionSort(List<Record> data, Comparator<Record> cmp) {
-            int n = data.size();
-            Record[] arr = data.toArray(new Record[0]);
+        private void insertionSort(int[] arr, RowComparator cmp) {
+            int n = arr.length;
             for (int i = 1; i < n; i++) {
-                Record key = arr[i];
+                int key = arr[i];
                 int j = i - 1;
                 while (j >= 0 && cmp.compare(arr[j], key) > 0) {
                     arr[j + 1] = arr[j];
                     j--;
                 }
                 arr[j + 1] = key;
-                if (i % 100 == 0 || i == n - 1) {
-                    int progress = (int) (((i + 1) / (double) n) * 100);
-                    setProgress(progress);
+                if ((i & SortProgress.CHECK_MASK) == 0) {
+                    progress.update(SortProgress.quadraticWork(i, n));
                 }
             }
-            data.clear();
-            data.addAll(Arrays.asList(arr));
-            setProgress(100);
         }
+    }
+
+    /**
+     * Progress and cancellation shared between a running sort and whoever
+     * watches it. Kernels call {@link #update} every so often with the share
+     * of the work done. That call reads the cancel flag and the clock, and
+     * passes an update to the listener at most once per 50 ms however fast
+     * the loop runs, so the EDT is never flooded. The ETA extrapolates the
+     * elapsed time over the remaining share. The n log n kernels have no
+     * useful share to report and just call {@link #checkCancelled}.
+     */
+    static final class SortProgress {
+        interface Listener {
+            void progress(int percent, long etaMillis);
+        }
+
+        /** Insertion sorts report every CHECK_MASK + 1 outer iterations. */
+        static final int CHECK_MASK = 255;
+        /** Divide-and-conquer kernels check for Stop once per subrange at least this long. */
+        static final int CHECK_SPAN = 1 << 16;
+        /** For sorts nobody can stop, such as the speedup baseline. */
+        static final SortProgress NONE = new SortProgress(null);
+        private static final long PUBLISH_INTERVAL_NANOS = 50_000_000L;
 
-        private List<Record> mergeSort(List<Record> data, Comparator<Record> cmp) {
-            Record[] arr = data.toArray(new Record[0]);
-            mergeSortRec(arr, 0, arr.length - 1, cmp);
-            return new ArrayList<>(Arrays.asList(arr));
+        private final Listener listener;
+        private volatile boolean cancelled;
+        private long startNanos = System.nanoTime();
+        private long lastPublish = startNanos;
+
+        SortProgress(Listener listener) {
+            this.listener = listener;
         }
 
-        private void mergeSortRec(Record[] arr, int l, int r, Comparator<Record> cmp) {
-            if (l >= r) return;
-            int m = l + (r - l) / 2;
-            mergeSortRec(arr, l, m, cmp);
-            mergeSortRec(arr, m + 1, r, cmp);
-            merge(arr, l, m, r, cmp);
+        void begin() {
+            startNanos = lastPublish = System.nanoTime();
         }
 
-        private void merge(Record[] arr, int l, int m, int r, Comparator<Record> cmp) {
-            int n1 = m - l + 1;
-            int n2 = r - m;
-            Record[] L = new Record[n1];
-            Record[] R = new Record[n2];
-            System.arraycopy(arr, l, L, 0, n1);
-            System.arraycopy(arr, m + 1, R, 0, n2);
-            int i = 0, j = 0, k = l;
-            while (i < n1 && j < n2) {
-                if (cmp.compare(L[i], R[j]) <= 0) {
-                    arr[k++] = L[i++];
-                } else {
-                    arr[k++] = R[j++];
+        void cancel() {
+            cancelled = true;
+        }
+
+        boolean isCancelled() {
+            return cancelled;
+        }
+
+        void checkCancelled() {
+            if (cancelled) throw new CancellationException("Sort stopped");
+        }
+
+        /** @param done share of the total work finished, 0 to 1 */
+        void update(double done) {
+            checkCancelled();
+            if (listener == null) return;
+            long now = System.nanoTime();
+            if (now - lastPublish < PUBLISH_INTERVAL_NANOS) return;
+            lastPublish = now;
+            long eta = done > 0 ? (long) ((now - startNanos) / 1e6 * (1 - done) / done) : -1;
+            listener.progress((int) (done * 100), eta);
+        }
+
+        long elapsedMillis() {
+            return (System.nanoTime() - startNanos) / 1_000_000;
+        }
+
+        /**
+         * Share of an O(n^2) sort's comparisons covered by the first i of n
+         * elements. Insertion sort's prefix grows, so its progress is this
+         * value directly; bubble sort's unsorted part shrinks, so its
+         * progress is one minus this value for the part still unsorted.
+         */
+        static double quadraticWork(long i, long n) {
+            double r = i / (double) n;
+            return r * r;
+        }
+    }
+
+    /**
+     * Headless sweep over files, algorithms, columns and row counts, using the
+     * same loader and kernels as the GUI. Started with
+     * {@code java SortingStressTest --bench --file data.csv [options]}; see
+     * {@link #usage()} for the options. Each configuration runs its warmup
+     * rounds, then the measured repetitions, and one summary line (median,
+     * p90, min, max of load, key build and sort time) is written per
+     * configuration as CSV or JSON.
+     */
+    static final class BenchmarkRunner {
+        private File file;
+        private List<String> algorithms = Arrays.asList(SortEngine.ALGORITHMS);
+        private List<String> columns = Arrays.asList(SortEngine.COLUMNS);
+        private int[] rowCounts = {1_000, 10_000, 100_000};
+        private int warmup = 2;
+        private int reps = 5;
+        private int maxQuadratic = 30_000;
+        private String format = null;
+        private File out = null;
+
+        static int run(String[] args) {
+            BenchmarkRunner runner = new BenchmarkRunner();
+            try {
+                runner.parse(args);
+            } catch (IllegalArgumentException ex) {
+                System.err.println(ex.getMessage());
+                System.err.println(usage());
+                return 2;
+            }
+            try {
+                runner.runAll();
+                return 0;
+            } catch (IOException ex) {
+                System.err.println("Error: " + ex.getMessage());
+                return 1;
+            }
+        }
+
+        static String usage() {
+            return "Usage: java SortingStressTest --bench --file <csv> [options]\n"
+                    + "  --algorithms <a,b,...>  algorithm names as in the GUI, or 'all' (default all)\n"
+                    + "  --columns <c,...>       ID, FirstName, LastName (default all)\n"
+                    + "  --rows <n,...>          row counts, k/M suffixes allowed (default 1k,10k,100k)\n"
+                    + "  --warmup <n>            unmeasured rounds per configuration (default 2)\n"
+                    + "  --reps <n>              measured rounds per configuration (default 5)\n"
+                    + "  --max-quadratic <n>     skip Bubble/Insertion above this many rows (default 30000)\n"
+                    + "  --format csv|json       output format (default from --out extension, else csv)\n"
+                    + "  --out <file>            write results to a file instead of stdout";
+        }
+
+        private void parse(String[] args) {
+            for (int i = 0; i < args.length; i++) {
+                String opt = args[i];
+                if (i + 1 >= args.length) throw new IllegalArgumentException("Missing value for " + opt);
+                String value = args[++i];
+                switch (opt) {
+                    case "--file":
+                        file = new File(value);
+                        break;
+                    case "--algorithms":
+                        algorithms = value.equalsIgnoreCase("all") ? algorithms : names(value, SortEngine.ALGORITHMS);
+                        break;
+                    case "--columns":
+                        columns = value.equalsIgnoreCase("all") ? columns : names(value, SortEngine.COLUMNS);
+                        break;
+                    case "--rows":
+                        String[] parts = value.split(",");
+                        rowCounts = new int[parts.length];
+                        for (int k = 0; k < parts.length; k++) rowCounts[k] = parseCount(parts[k]);
+                        break;
+                    case "--warmup":
+                        warmup = parseCount(value);
+                        break;
+                    case "--reps":
+                        reps = Math.max(1, parseCount(value));
+                        break;
+                    case "--max-quadratic":
+                        maxQuadratic = parseCount(value);
+                        break;
+                    case "--format":
+                        format = value.toLowerCase(Locale.ROOT);
+                        if (!format.equals("csv") && !format.equals("json")) {
+                            throw new IllegalArgumentException("Unknown format: " + value);
+                        }
+                        break;
+                    case "--out":
+                        out = new File(value);
+                        break;
+                    default:
+                        throw new IllegalArgumentException("Unknown option: " + opt);
                 }
             }
-            while (i < n1) arr[k++] = L[i++];
-            while (j < n2) arr[k++] = R[j++];
+            if (file == null) throw new IllegalArgumentException("--file is required");
+            if (!file.isFile()) throw new IllegalArgumentException("No such file: " + file);
+            if (format == null) {
+                format = out != null && out.getName().toLowerCase(Locale.ROOT).endsWith(".json") ? "json" : "csv";
+            }
         }
 
-        @Override
-        protected void process(List<Integer> chunks) {
-            if (!chunks.isEmpty()) {
-                int p = chunks.get(chunks.size() - 1);
-                progressBar.setValue(p);
+        // Matches case-insensitively against the known names so shells need not preserve case
+        private static List<String> names(String list, String[] known) {
+            List<String> picked = new ArrayList<>();
+            for (String name : list.split(",")) {
+                String match = null;
+                for (String k : known) {
+                    if (k.equalsIgnoreCase(name.trim())) match = k;
+                }
+                if (match == null) throw new IllegalArgumentException("Unknown name: " + name.trim());
+                picked.add(match);
             }
+            return picked;
         }
 
-        @Override
-        protected void done() {
-            startButton.setEnabled(true);
+        // "1000", "1k", "10M"
+        static int parseCount(String s) {
+            String t = s.trim();
+            long scale = 1;
+            if (t.endsWith("k") || t.endsWith("K")) {
+                scale = 1_000;
+                t = t.substring(0, t.length() - 1);
+            } else if (t.endsWith("m") || t.endsWith("M")) {
+                scale = 1_000_000;
+                t = t.substring(0, t.length() - 1);
+            }
             try {
-                List<Record> result = get();
-                if (error != null) {
-                    JOptionPane.showMessageDialog(SortingStressTest.this, "Error: " + error.getMessage(), "Error", JOptionPane.ERROR_MESSAGE);
-                    return;
+                long v = Long.parseLong(t) * scale;
+                if (v < 0 || v > Integer.MAX_VALUE) throw new IllegalArgumentException("Count out of range: " + s);
+                return (int) v;
+            } catch (NumberFormatException ex) {
+                throw new IllegalArgumentException("Not a count: " + s);
+            }
+        }
+
+        private void runAll() throws IOException {
+            List<Result> results = new ArrayList<>();
+            for (int rows : rowCounts) {
+                for (String column : columns) {
+                    for (String algorithm : algorithms) {
+                        if (SortEngine.unsupported(algorithm, column) != null) continue;
+                        if (SortEngine.isQuadratic(algorithm) && rows > maxQuadratic) {
+                            System.err.printf("skip %s / %s / %d rows (above --max-quadratic)%n", algorithm, column, rows);
+                            continue;
+                        }
+                        Result r = measure(algorithm, column, rows);
+                        System.err.printf("%s / %s / %d rows: sort median %.2f ms%n", algorithm, column, rows,
+                                percentile(r.sortMs, 50));
+                        results.add(r);
+                    }
+                }
+            }
+            String text = format.equals("json") ? toJson(results) : toCsv(results);
+            if (out == null) {
+                System.out.print(text);
+            } else {
+                try (Writer w = new OutputStreamWriter(new FileOutputStream(out), StandardCharsets.UTF_8)) {
+                    w.write(text);
                 }
-                loadTimeLabel.setText(String.format("⏱️ Load time: %d ms (loaded %d rows)", loadMillis, result.size()));
-                sortTimeLabel.setText(String.format("⚡ Sort time: %d ms", sortMillis));
-                updateResultTable(result, column);
-                progressBar.setValue(100);
-            } catch (InterruptedException | ExecutionException e) {
-                JOptionPane.showMessageDialog(SortingStressTest.this, "Failed: " + e.getMessage(), "Error", JOptionPane.ERROR_MESSAGE);
             }
         }
-    }
 
-    public static void main(String[] args) {
-        SwingUtilities.invokeLater(() -> {
-            SortingStressTest s = new SortingStressTest();
-            s.setVisible(true);
-        });
+        private Result measure(String algorithm, String column, int rows) throws IOException {
+            Result r = new Result(algorithm, column, rows, reps);
+            for (int round = -warmup; round < reps; round++) {
+                long t0 = System.nanoTime();
+                RecordTable table = new MappedCsvLoader().load(file, rows);
+                long t1 = System.nanoTime();
+                int[] order = table.identityOrder();
+                SortEngine engine = new SortEngine(algorithm, column);
+                engine.buildKeys(table, order);
+                long t2 = System.nanoTime();
+                engine.sort(table, order);
+                long t3 = System.nanoTime();
+                if (round < 0) continue;
+                r.loaded = table.size();
+                r.loadMs[round] = (t1 - t0) / 1e6;
+                r.keyMs[round] = (t2 - t1) / 1e6;
+                r.sortMs[round] = (t3 - t2) / 1e6;
+                r.verified &= isSorted(table, order, column);
+            }
+            return r;
+        }
+
+        private static boolean isSorted(RecordTable table, int[] order, String column) {
+            for (int i = 1; i < order.length; i++) {
+                int a = order[i - 1], b = order[i];
+                int c;
+                switch (column) {
+                    case "ID":
+                        c = table.compareId(a, b);
+                        break;
+                    case "FirstName":
+                        c = table.compareFirstName(a, b);
+                        break;
+                    default:
+                        c = table.compareLastName(a, b);
+                }
+                if (c > 0) return false;
+            }
+            return true;
+        }
+
+        // Nearest-rank percentile; sorts a copy so the raw samples keep their run order
+        static double percentile(double[] samples, int p) {
+            double[] s = samples.clone();
+            for (int i = 1; i < s.length; i++) {
+                double v = s[i];
+                int j = i - 1;
+                while (j >= 0 && s[j] > v) {
+                    s[j + 1] = s[j];
+                    j--;
+                }
+                s[j + 1] = v;
+            }
+            int rank = (int) Math.ceil(p / 100.0 * s.length);
+            return s[Math.max(0, rank - 1)];
+        }
+
+        private static final String[] STAT_NAMES = {"median", "p90", "min", "max"};
+
+        private static double[] stats(double[] samples) {
+            return new double[] {percentile(samples, 50), percentile(samples, 90), percentile(samples, 0),
+                    percentile(samples, 100)};
+        }
+
+        private String toCsv(List<Result> results) {
+            StringBuilder sb = new StringBuilder("algorithm,column,rows,loaded,warmup,reps,verified");
+            for (String metric : new String[] {"load", "key", "sort"}) {
+                for (String stat : STAT_NAMES) sb.append(',').append(metric).append('_').append(stat).append("_ms");
+            }
+            sb.append('\n');
+            for (Result r : results) {
+                sb.append('"').append(r.algorithm).append("\",").append(r.column).append(',').append(r.rows)
+                        .append(',').append(r.loaded).append(',').append(warmup).append(',').append(reps)
+                        .append(',').append(r.verified);
+                for (double[] samples : new double[][] {r.loadMs, r.keyMs, r.sortMs}) {
+                    for (double v : stats(samples)) sb.append(',').append(String.format(Locale.ROOT, "%.3f", v));
+                }
+                sb.append('\n');
+            }
+            return sb.toString();
+        }
+
+        private String toJson(List<Result> results) {
+            StringBuilder sb = new StringBuilder("[\n");
+            for (int i = 0; i < results.size(); i++) {
+                Result r = results.get(i);
+                sb.append(String.format(Locale.ROOT,
+                        "  {\"algorithm\": \"%s\", \"column\": \"%s\", \"rows\": %d, \"loaded\": %d, "
+                                + "\"warmup\": %d, \"reps\": %d, \"verified\": %b",
+                        r.algorithm, r.column, r.rows, r.loaded, warmup, reps, r.verified));
+                String[] metrics = {"load", "key", "sort"};
+                double[][] samples = {r.loadMs, r.keyMs, r.sortMs};
+                for (int m = 0; m < metrics.length; m++) {
+                    double[] st = stats(samples[m]);
+                    sb.append(", \"").append(metrics[m]).append("_ms\": {");
+                    for (int k = 0; k < STAT_NAMES.length; k++) {
+                        if (k > 0) sb.append(", ");
+                        sb.append(String.format(Locale.ROOT, "\"%s\": %.3f", STAT_NAMES[k], st[k]));
+                    }
+                    sb.append('}');
+                }
+                sb.append(i + 1 < results.size() ? "},\n" : "}\n");
+            }
+            return sb.append("]\n").toString();
+        }
+
+        private static final class Result {
+            final String algorithm;
+            final String column;
+            final int rows;
+            int loaded;
+            boolean verified = true;
+            final double[] loadMs;
+            final double[] keyMs;
+            final double[] sortMs;
+
+            Result(String algorithm, String column, int rows, int reps) {
+                this.algorithm = algorithm;
+                this.column = column;
+                this.rows = rows;
+                this.loadMs = new double[reps];
+                this.keyMs = new double[reps];
+                this.sortMs = new double[reps];
+            }
+        }
     }
 
-    // Simple record holder
-    private static class Record {
-        int id;
-        String firstName;
-        String lastName;
-        Record(int id, String fn, String ln) {
-            this.id = id;
-            this.firstName = fn;
-            this.lastName = ln;
+    /**
+     * Read-only view of one column of a {@link RecordTable} in sorted order.
+     * Cells are produced on demand from {@code order}, so a model over
+     * millions of rows costs no more than the part that is on screen.
+     */
+    static final class SortedRowsModel extends AbstractTableModel {
+        private static final long serialVersionUID = 1L;
+        private final RecordTable table;
+        private final int[] order;
+        private final String column;
+
+        SortedRowsModel(RecordTable table, int[] order, String column) {
+            this.table = table;
+            this.order = order;
+            this.column = column;
+        }
+
+        @Override
+        public int getRowCount() {
+            return order.length;
+        }
+
+        @Override
+        public int getColumnCount() {
+            return 1;
+        }
+
+        @Override
+        public String getColumnName(int c) {
+            return column;
+        }
+
+        @Override
+        public Class<?> getColumnClass(int c) {
+            return column.equals("ID") ? Integer.class : String.class;
+        }
+
+        @Override
+        public Object getValueAt(int r, int c) {
+            int row = order[r];
+            switch (column) {
+                case "ID":
+                    return table.id(row);
+                case "FirstName":
+                    return table.firstName(row);
+                case "LastName":
+                    return table.lastName(row);
+                default:
+                    return "";
+            }
+        }
+    }
+
+    /**
+     * Row sorter for {@link SortedRowsModel}. The model is already in
+     * ascending order, so clicking the header only flips between ascending
+     * and descending by mirroring row indices; nothing is re-sorted on the EDT.
+     */
+    static final class EngineOrderSorter extends RowSorter<TableModel> {
+        private final TableModel model;
+        private boolean descending;
+
+        EngineOrderSorter(TableModel model) {
+            this.model = model;
+        }
+
+        @Override
+        public TableModel getModel() {
+            return model;
+        }
+
+        @Override
+        public void toggleSortOrder(int column) {
+            descending = !descending;
+            fireSortOrderChanged();
+            fireRowSorterChanged(null);
+        }
+
+        @Override
+        public int convertRowIndexToModel(int index) {
+            return descending ? model.getRowCount() - 1 - index : index;
+        }
+
+        @Override
+        public int convertRowIndexToView(int index) {
+            return descending ? model.getRowCount() - 1 - index : index;
+        }
+
+        @Override
+        public void setSortKeys(List<? extends SortKey> keys) {
+            boolean desc = keys != null && !keys.isEmpty() && keys.get(0).getSortOrder() == SortOrder.DESCENDING;
+            if (desc != descending) toggleSortOrder(0);
+        }
+
+        @Override
+        public List<? extends SortKey> getSortKeys() {
+            return Collections.singletonList(new SortKey(0, descending ? SortOrder.DESCENDING : SortOrder.ASCENDING));
+        }
+
+        @Override
+        public int getViewRowCount() {
+            return model.getRowCount();
+        }
+
+        @Override
+        public int getModelRowCount() {
+            return model.getRowCount();
+        }
+
+        // The model never changes after it is built, so there is nothing to re-sort
+        @Override
+        public void modelStructureChanged() {
+        }
+
+        @Override
+        public void allRowsChanged() {
+        }
+
+        @Override
+        public void rowsInserted(int firstRow, int endRow) {
+        }
+
+        @Override
+        public void rowsDeleted(int firstRow, int endRow) {
+        }
+
+        @Override
+        public void rowsUpdated(int firstRow, int endRow) {
+        }
+
+        @Override
+        public void rowsUpdated(int firstRow, int endRow, int column) {
+        }
+    }
+
+    /**
+     * Memory-mapped CSV reader. Scans the raw bytes for commas and newlines,
+     * parses the id in place and copies the name bytes straight into the
+     * table's character arena, so no line String or split array is ever created.
+     */
+    static final class MappedCsvLoader {
+        // Large files are mapped as consecutive slices that always start on a line boundary
+        private static final long WINDOW = 1L << 30;
+
+        long bytesScanned = 0;
+
+        RecordTable load(File file, int maxRows) throws IOException {
+            RecordTable table = new RecordTable(Math.min(Math.max(100, maxRows), 1 << 20));
+            try (FileChannel ch = FileChannel.open(file.toPath(), StandardOpenOption.READ)) {
+                long size = ch.size();
+                long pos = 0;
+                // Assume header on first line. If not, this will skip first record.
+                boolean first = true;
+                while (pos < size && table.size() < maxRows) {
+                    int len = (int) Math.min(WINDOW, size - pos);
+                    boolean lastWindow = pos + len == size;
+                    MappedByteBuffer buf = ch.map(FileChannel.MapMode.READ_ONLY, pos, len);
+                    int i = 0;
+                    while (i < len && table.size() < maxRows) {
+                        int eol = i;
+                        while (eol < len && buf.get(eol) != '\n') eol++;
+                        if (eol == len && !lastWindow) break; // line continues in the next slice
+                        if (first) {
+                            first = false;
+                        } else {
+                            parseLine(buf, i, eol, table);
+                        }
+                        i = eol + 1;
+                    }
+                    if (i == 0) throw new IOException("CSV line longer than " + WINDOW + " bytes");
+                    pos += Math.min(i, len);
+                }
+                bytesScanned = pos;
+            }
+            table.trimToSize();
+            return table;
+        }
+
+        /** Appends one row; malformed lines (fewer than 3 fields or a non-integer id) are skipped. */
+        private static void parseLine(ByteBuffer buf, int start, int end, RecordTable table) {
+            if (end > start && buf.get(end - 1) == '\r') end--;
+            int c1 = indexOf(buf, ',', start, end);
+            if (c1 < 0) return;
+            int c2 = indexOf(buf, ',', c1 + 1, end);
+            if (c2 < 0) return;
+            int c3 = indexOf(buf, ',', c2 + 1, end);
+            if (c3 < 0) c3 = end;
+
+            // Same semantics as Integer.parseInt(field.trim()), without the String
+            int a = trimStart(buf, start, c1), b = trimEnd(buf, a, c1);
+            if (a == b) return;
+            boolean neg = false;
+            byte sign = buf.get(a);
+            if (sign == '-' || sign == '+') {
+                neg = sign == '-';
+                if (++a == b) return;
+            }
+            long v = 0;
+            for (int k = a; k < b; k++) {
+                int d = buf.get(k) - '0';
+                if (d < 0 || d > 9) return;
+                v = v * 10 + d;
+                if (v > (long) Integer.MAX_VALUE + 1) return;
+            }
+            if (neg) v = -v;
+            if (v > Integer.MAX_VALUE) return;
+
+            int fa = trimStart(buf, c1 + 1, c2), fb = trimEnd(buf, fa, c2);
+            int la = trimStart(buf, c2 + 1, c3), lb = trimEnd(buf, la, c3);
+            table.add((int) v, buf, fa, fb, la, lb);
+        }
+
+        private static int indexOf(ByteBuffer buf, char ch, int from, int to) {
+            for (int k = from; k < to; k++) if (buf.get(k) == ch) return k;
+            return -1;
+        }
+
+        // Whitespace as String.trim() sees it; multi-byte UTF-8 never falls in this range
+        private static int trimStart(ByteBuffer buf, int from, int to) {
+            while (from < to && (buf.get(from) & 0xFF) <= ' ') from++;
+            return from;
+        }
+
+        private static int trimEnd(ByteBuffer buf, int from, int to) {
+            while (to > from && (buf.get(to - 1) & 0xFF) <= ' ') to--;
+            return to;
+        }
+    }
+
+    /**
+     * Top-down merge sort that allocates exactly one auxiliary array per
+     * sort. The buffer starts as a copy of the input and the two arrays
+     * swap roles at every level (each half is sorted into the other array
+     * and then merged back), so nothing is allocated or copied inside the
+     * recursion.
+     */
+    static final class MergeSortKernel {
+        static void sort(int[] a, RowComparator cmp) {
+            sort(a, cmp, SortProgress.NONE);
+        }
+
+        static void sort(int[] a, RowComparator cmp, SortProgress progress) {
+            if (a.length < 2) return;
+            sortRange(a.clone(), a, 0, a.length, cmp, progress);
+        }
+
+        // src and dst hold the same elements in [lo, hi) on entry; on exit dst[lo, hi) is sorted
+        static void sortRange(int[] src, int[] dst, int lo, int hi, RowComparator cmp, SortProgress progress) {
+            if (hi - lo < 2) return;
+            int mid = (lo + hi) >>> 1;
+            sortRange(dst, src, lo, mid, cmp, progress);
+            sortRange(dst, src, mid, hi, cmp, progress);
+            if (hi - lo >= SortProgress.CHECK_SPAN) progress.checkCancelled();
+            merge(src, lo, mid, mid, hi, dst, lo, cmp);
+        }
+
+        // Stable merge of src[l1, h1) and src[l2, h2) into dst starting at d
+        static void merge(int[] src, int l1, int h1, int l2, int h2, int[] dst, int d, RowComparator cmp) {
+            while (l1 < h1 && l2 < h2) {
+                dst[d++] = cmp.compare(src[l1], src[l2]) <= 0 ? src[l1++] : src[l2++];
+            }
+            while (l1 < h1) dst[d++] = src[l1++];
+            while (l2 < h2) dst[d++] = src[l2++];
+        }
+    }
+
+    /**
+     * Sort kernels for a primitive int key column carried alongside a row
+     * permutation (keys[i] belongs to row perm[i]). Every comparison is a
+     * plain int compare; both arrays are permuted together and are in
+     * sorted order on return. All kernels are stable.
+     */
+    static final class IntKeySort {
+        static void mergeSort(int[] keys, int[] perm) {
+            mergeSort(keys, perm, SortProgress.NONE);
+        }
+
+        static void mergeSort(int[] keys, int[] perm, SortProgress progress) {
+            if (keys.length < 2) return;
+            sortRange(keys.clone(), perm.clone(), keys, perm, 0, keys.length, progress);
+        }
+
+        // Ping-pong like MergeSortKernel: src and dst hold the same pairs in [lo, hi) on entry
+        static void sortRange(int[] sk, int[] sp, int[] dk, int[] dp, int lo, int hi, SortProgress progress) {
+            if (hi - lo < 2) return;
+            int mid = (lo + hi) >>> 1;
+            sortRange(dk, dp, sk, sp, lo, mid, progress);
+            sortRange(dk, dp, sk, sp, mid, hi, progress);
+            if (hi - lo >= SortProgress.CHECK_SPAN) progress.checkCancelled();
+            merge(sk, sp, lo, mid, mid, hi, dk, dp, lo);
+        }
+
+        static void merge(int[] sk, int[] sp, int l1, int h1, int l2, int h2, int[] dk, int[] dp, int d) {
+            while (l1 < h1 && l2 < h2) {
+                if (sk[l1] <= sk[l2]) {
+                    dk[d] = sk[l1];
+                    dp[d++] = sp[l1++];
+                } else {
+                    dk[d] = sk[l2];
+                    dp[d++] = sp[l2++];
+                }
+            }
+            System.arraycopy(sk, l1, dk, d, h1 - l1);
+            System.arraycopy(sp, l1, dp, d, h1 - l1);
+            d += h1 - l1;
+            System.arraycopy(sk, l2, dk, d, h2 - l2);
+            System.arraycopy(sp, l2, dp, d, h2 - l2);
+        }
+
+        /**
+         * LSD radix sort on 32-bit signed keys: four counting passes of one
+         * byte each, with the sign bit flipped so negatives order first.
+         * All four histograms are built in a single scan, and passes where
+         * every key has the same digit (e.g. the high byte of small ids)
+         * are skipped.
+         */
+        static void radixSort(int[] keys, int[] perm) {
+            radixSort(keys, perm, SortProgress.NONE);
+        }
+
+        static void radixSort(int[] keys, int[] perm, SortProgress progress) {
+            int n = keys.length;
+            if (n < 2) return;
+            int[][] counts = new int[4][257];
+            for (int k : keys) {
+                int u = k ^ Integer.MIN_VALUE;
+                counts[0][(u & 0xFF) + 1]++;
+                counts[1][((u >>> 8) & 0xFF) + 1]++;
+                counts[2][((u >>> 16) & 0xFF) + 1]++;
+                counts[3][(u >>> 24) + 1]++;
+            }
+            int[] sk = keys, sp = perm;
+            int[] dk = new int[n], dp = new int[n];
+            for (int pass = 0; pass < 4; pass++) {
+                progress.checkCancelled();
+                int shift = pass * 8;
+                int[] c = counts[pass];
+                if (c[(((sk[0] ^ Integer.MIN_VALUE) >>> shift) & 0xFF) + 1] == n) continue;
+                for (int d = 1; d < 257; d++) c[d] += c[d - 1];
+                for (int i = 0; i < n; i++) {
+                    int digit = ((sk[i] ^ Integer.MIN_VALUE) >>> shift) & 0xFF;
+                    int at = c[digit]++;
+                    dk[at] = sk[i];
+                    dp[at] = sp[i];
+                }
+                int[] t = sk; sk = dk; dk = t;
+                t = sp; sp = dp; dp = t;
+            }
+            if (sk != keys) {
+                System.arraycopy(sk, 0, keys, 0, n);
+                System.arraycopy(sp, 0, perm, 0, n);
+            }
+        }
+
+        /** Key/permutation counterpart of {@link ParallelMergeSort}, on the same pool and cutoff. */
+        static void parallelMergeSort(int[] keys, int[] perm, SortProgress progress) {
+            if (keys.length < 2) return;
+            ParallelMergeSort.POOL.invoke(new SortAction(keys.clone(), perm.clone(), keys, perm,
+                    0, keys.length, ParallelMergeSort.THRESHOLD, progress));
+        }
+
+        private static final class SortAction extends RecursiveAction {
+            private static final long serialVersionUID = 1L;
+            private final int[] sk, sp, dk, dp;
+            private final int lo, hi, threshold;
+            private final SortProgress progress;
+
+            SortAction(int[] sk, int[] sp, int[] dk, int[] dp, int lo, int hi, int threshold, SortProgress progress) {
+                this.sk = sk; this.sp = sp; this.dk = dk; this.dp = dp;
+                this.lo = lo; this.hi = hi; this.threshold = threshold; this.progress = progress;
+            }
+
+            @Override
+            protected void compute() {
+                if (hi - lo <= threshold) {
+                    sortRange(sk, sp, dk, dp, lo, hi, progress);
+                    return;
+                }
+                int mid = (lo + hi) >>> 1;
+                invokeAll(new SortAction(dk, dp, sk, sp, lo, mid, threshold, progress),
+                          new SortAction(dk, dp, sk, sp, mid, hi, threshold, progress));
+                progress.checkCancelled();
+                new MergeAction(sk, sp, lo, mid, mid, hi, dk, dp, lo, threshold).compute();
+            }
+        }
+
+        private static final class MergeAction extends RecursiveAction {
+            private static final long serialVersionUID = 1L;
+            private final int[] sk, sp, dk, dp;
+            private final int l1, h1, l2, h2, d, threshold;
+
+            MergeAction(int[] sk, int[] sp, int l1, int h1, int l2, int h2,
+                        int[] dk, int[] dp, int d, int threshold) {
+                this.sk = sk; this.sp = sp; this.l1 = l1; this.h1 = h1; this.l2 = l2; this.h2 = h2;
+                this.dk = dk; this.dp = dp; this.d = d; this.threshold = threshold;
+            }
+
+            @Override
+            protected void compute() {
+                int n1 = h1 - l1, n2 = h2 - l2;
+                if (n1 + n2 <= threshold || n1 == 0 || n2 == 0) {
+                    merge(sk, sp, l1, h1, l2, h2, dk, dp, d);
+                    return;
+                }
+                int m1, m2;
+                if (n1 >= n2) {
+                    m1 = (l1 + h1) >>> 1;
+                    m2 = bound(sk, l2, h2, sk[m1], false);
+                } else {
+                    m2 = (l2 + h2) >>> 1;
+                    m1 = bound(sk, l1, h1, sk[m2], true);
+                }
+                int split = d + (m1 - l1) + (m2 - l2);
+                invokeAll(new MergeAction(sk, sp, l1, m1, l2, m2, dk, dp, d, threshold),
+                          new MergeAction(sk, sp, m1, h1, m2, h2, dk, dp, split, threshold));
+            }
+        }
+
+        // First index in [lo, hi) with a[i] > key (upper) or a[i] >= key (lower)
+        private static int bound(int[] a, int lo, int hi, int key, boolean upper) {
+            while (lo < hi) {
+                int m = (lo + hi) >>> 1;
+                if (a[m] < key || (upper && a[m] == key)) lo = m + 1; else hi = m;
+            }
+            return lo;
+        }
+    }
+
+    /**
+     * Three-way radix quicksort (multikey quicksort) over a name column.
+     * Rows are partitioned on one folded character at a time into less /
+     * equal / greater groups, and only the equal group moves on to the next
+     * character, so shared prefixes are examined once per group instead of
+     * once per comparison. Small groups drop to an insertion sort that
+     * starts comparing at the current depth.
+     *
+     * The characters come from RecordTable.foldedUnit, so the order is
+     * exactly String.CASE_INSENSITIVE_ORDER. Rows whose names are equal end
+     * up in row order, which makes the output identical to the stable
+     * merge sorts.
+     */
+    static final class StringRadixSort {
+        private static final int CUTOFF = 15;
+
+        static void sort(int[] rows, RecordTable table, boolean lastName, SortProgress progress) {
+            new StringRadixSort(table, lastName, progress).sort(rows, 0, rows.length - 1, 0);
+        }
+
+        private final RecordTable table;
+        private final boolean lastName;
+        private final SortProgress progress;
+
+        private StringRadixSort(RecordTable table, boolean lastName, SortProgress progress) {
+            this.table = table;
+            this.lastName = lastName;
+            this.progress = progress;
+        }
+
+        private int unit(int row, int d) {
+            return table.foldedUnit(row, lastName, d);
+        }
+
+        // Sorts rows[lo..hi] whose names all agree on the first d characters
+        private void sort(int[] a, int lo, int hi, int d) {
+            while (hi > lo) {
+                if (hi <= lo + CUTOFF) {
+                    insertion(a, lo, hi, d);
+                    return;
+                }
+                if (hi - lo >= SortProgress.CHECK_SPAN) progress.checkCancelled();
+                swap(a, lo, lo + (hi - lo) / 2); // middle pivot keeps pre-sorted input from degrading
+                int v = unit(a[lo], d);
+                int lt = lo, gt = hi, i = lo + 1;
+                while (i <= gt) {
+                    int t = unit(a[i], d);
+                    if (t < v) swap(a, lt++, i++);
+                    else if (t > v) swap(a, i, gt--);
+                    else i++;
+                }
+                sort(a, lo, lt - 1, d);
+                if (v >= 0) sort(a, lt, gt, d + 1);
+                else sortRows(a, lt, gt); // identical names: fall back to row order
+                lo = gt + 1;
+            }
+        }
+
+        private void insertion(int[] a, int lo, int hi, int d) {
+            for (int i = lo + 1; i <= hi; i++) {
+                int row = a[i];
+                int j = i - 1;
+                while (j >= lo && less(row, a[j], d)) {
+                    a[j + 1] = a[j];
+                    j--;
+                }
+                a[j + 1] = row;
+            }
+        }
+
+        private boolean less(int x, int y, int d) {
+            for (;; d++) {
+                int cx = unit(x, d), cy = unit(y, d);
+                if (cx != cy) return cx < cy;
+                if (cx < 0) return x < y;
+            }
+        }
+
+        private static void sortRows(int[] a, int lo, int hi) {
+            int n = hi - lo + 1;
+            if (n <= CUTOFF) {
+                for (int i = lo + 1; i <= hi; i++) {
+                    int row = a[i], j = i - 1;
+                    while (j >= lo && a[j] > row) {
+                        a[j + 1] = a[j];
+                        j--;
+                    }
+                    a[j + 1] = row;
+                }
+                return;
+            }
+            // Big runs of duplicate names are common; the row numbers are plain int keys
+            int[] rows = Arrays.copyOfRange(a, lo, hi + 1);
+            IntKeySort.radixSort(rows, new int[n]);
+            System.arraycopy(rows, 0, a, lo, n);
+        }
+
+        private static void swap(int[] a, int i, int j) {
+            int t = a[i];
+            a[i] = a[j];
+            a[j] = t;
+        }
+    }
+
+    /**
+     * TimSort-style adaptive merge sort over a row index. The input is
+     * scanned for natural runs; strictly descending runs are reversed in
+     * place (strictly, so equal rows keep their order) and runs shorter than
+     * minRun are extended with binary insertion. Runs are merged off a stack
+     * that keeps their lengths roughly balanced. Each merge first gallops to
+     * skip the prefix of the left run and the suffix of the right run that
+     * are already in place, then merges through a copy of the left run,
+     * switching to galloping while one side keeps winning. Sorted or mostly
+     * ordered exports therefore cost close to one linear pass instead of
+     * log n full merge passes.
+     */
+    static final class AdaptiveMergeSort {
+        private static final int MIN_MERGE = 32;
+        private static final int MIN_GALLOP = 7;
+
+        /** What the run scan and the merges found; shown next to the sort time. */
+        static final class RunStats {
+            int runs;
+            int reversed;
+            int extended;
+            int longest;
+            int minRun;
+            int merges;
+            long galloped;
+
+            @Override
+            public String toString() {
+                return String.format("%,d runs (%,d reversed, %,d extended to %d), longest %,d, %,d merges, %,d galloped",
+                        runs, reversed, extended, minRun, longest, merges, galloped);
+            }
+        }
+
+        static RunStats sort(int[] a, RowComparator cmp, SortProgress progress) {
+            AdaptiveMergeSort s = new AdaptiveMergeSort(a, cmp, progress);
+            s.sortAll();
+            return s.stats;
+        }
+
+        private final int[] a;
+        private final RowComparator cmp;
+        private final SortProgress progress;
+        private final RunStats stats = new RunStats();
+        private int[] tmp = new int[0];
+        private int minGallop = MIN_GALLOP;
+        // Pending runs; the length invariants keep the stack well under 49 entries for any int length
+        private final int[] runBase = new int[49];
+        private final int[] runLen = new int[49];
+        private int stackSize = 0;
+
+        private AdaptiveMergeSort(int[] a, RowComparator cmp, SortProgress progress) {
+            this.a = a;
+            this.cmp = cmp;
+            this.progress = progress;
+        }
+
+        private void sortAll() {
+            int n = a.length;
+            int minRun = minRunLength(n);
+            stats.minRun = minRun;
+            int lo = 0;
+            while (lo < n) {
+                int len = countRunAndMakeAscending(lo, n);
+                stats.runs++;
+                stats.longest = Math.max(stats.longest, len);
+                int force = Math.min(minRun, n - lo);
+                if (len < force) {
+                    binaryInsertionSort(lo, lo + force, lo + len);
+                    stats.extended++;
+                    len = force;
+                }
+                runBase[stackSize] = lo;
+                runLen[stackSize] = len;
+                stackSize++;
+                mergeCollapse();
+                lo += len;
+            }
+            while (stackSize > 1) {
+                int i = stackSize - 2;
+                if (i > 0 && runLen[i - 1] < runLen[i + 1]) i--;
+                mergeAt(i);
+            }
+        }
+
+        // n itself below MIN_MERGE, otherwise a value in [16, 32] that makes n / minRun close to a power of two
+        private static int minRunLength(int n) {
+            int r = 0;
+            while (n >= MIN_MERGE) {
+                r |= n & 1;
+                n >>= 1;
+            }
+            return n + r;
+        }
+
+        private int countRunAndMakeAscending(int lo, int hi) {
+            int runHi = lo + 1;
+            if (runHi == hi) return 1;
+            if (cmp.compare(a[runHi++], a[lo]) < 0) {
+                while (runHi < hi && cmp.compare(a[runHi], a[runHi - 1]) < 0) runHi++;
+                for (int i = lo, j = runHi - 1; i < j; i++, j--) {
+                    int t = a[i];
+                    a[i] = a[j];
+                    a[j] = t;
+                }
+                stats.reversed++;
+            } else {
+                while (runHi < hi && cmp.compare(a[runHi], a[runHi - 1]) >= 0) runHi++;
+            }
+            return runHi - lo;
+        }
+
+        // a[lo..start) is sorted; inserts a[start..hi) one by one after a binary search
+        private void binaryInsertionSort(int lo, int hi, int start) {
+            for (; start < hi; start++) {
+                int pivot = a[start];
+                int left = lo, right = start;
+                while (left < right) {
+                    int mid = (left + right) >>> 1;
+                    if (cmp.compare(pivot, a[mid]) < 0) right = mid;
+                    else left = mid + 1;
+                }
+                System.arraycopy(a, left, a, left + 1, start - left);
+                a[left] = pivot;
+            }
+        }
+
+        // Merges until runLen[i - 2] > runLen[i - 1] + runLen[i] and runLen[i - 1] > runLen[i] hold down the stack
+        private void mergeCollapse() {
+            while (stackSize > 1) {
+                int i = stackSize - 2;
+                if (i > 0 && runLen[i - 1] <= runLen[i] + runLen[i + 1]
+                        || i > 1 && runLen[i - 2] <= runLen[i] + runLen[i - 1]) {
+                    if (runLen[i - 1] < runLen[i + 1]) i--;
+                } else if (runLen[i] > runLen[i + 1]) {
+                    break;
+                }
+                mergeAt(i);
+            }
+        }
+
+        private void mergeAt(int i) {
+            int base1 = runBase[i], len1 = runLen[i];
+            int base2 = runBase[i + 1], len2 = runLen[i + 1];
+            runLen[i] = len1 + len2;
+            if (i == stackSize - 3) {
+                runBase[i + 1] = runBase[i + 2];
+                runLen[i + 1] = runLen[i + 2];
+            }
+            stackSize--;
+            stats.merges++;
+            if (len1 + len2 >= SortProgress.CHECK_SPAN) progress.checkCancelled();
+
+            // Left-run elements not greater than the right run's first are already in place...
+            int k = gallopRight(a[base2], a, base1, len1, 0);
+            base1 += k;
+            len1 -= k;
+            if (len1 == 0) {
+                stats.galloped += k + len2;
+                return;
+            }
+            // ...and so are right-run elements not less than the left run's last
+            int keep = gallopLeft(a[base1 + len1 - 1], a, base2, len2, len2 - 1);
+            stats.galloped += k + len2 - keep;
+            if (keep == 0) return;
+            mergeLo(base1, len1, base2, keep);
+        }
+
+        // Requires a[base2] < a[base1]; the left run is copied out and merged back from the front
+        private void mergeLo(int base1, int len1, int base2, int len2) {
+            if (tmp.length < len1) tmp = new int[Math.max(len1, Math.min(a.length, tmp.length * 2))];
+            int[] t = tmp;
+            System.arraycopy(a, base1, t, 0, len1);
+            int c1 = 0, c2 = base2, dest = base1;
+            int end2 = base2 + len2;
+            a[dest++] = a[c2++];
+            outer:
+            while (c1 < len1 && c2 < end2) {
+                // One element at a time until one side wins minGallop times in a row
+                int count1 = 0, count2 = 0;
+                while ((count1 | count2) < minGallop) {
+                    if (cmp.compare(a[c2], t[c1]) < 0) {
+                        a[dest++] = a[c2++];
+                        count2++;
+                        count1 = 0;
+                        if (c2 == end2) break outer;
+                    } else {
+                        a[dest++] = t[c1++];
+                        count1++;
+                        count2 = 0;
+                        if (c1 == len1) break outer;
+                    }
+                }
+                // Then find how far each side wins with exponential search and move whole blocks
+                do {
+                    count1 = gallopRight(a[c2], t, c1, len1 - c1, 0);
+                    if (count1 != 0) {
+                        System.arraycopy(t, c1, a, dest, count1);
+                        dest += count1;
+                        c1 += count1;
+                        stats.galloped += count1;
+                        if (c1 == len1) break outer;
+                    }
+                    a[dest++] = a[c2++];
+                    if (c2 == end2) break outer;
+                    count2 = gallopLeft(t[c1], a, c2, end2 - c2, 0);
+                    if (count2 != 0) {
+                        System.arraycopy(a, c2, a, dest, count2);
+                        dest += count2;
+                        c2 += count2;
+                        stats.galloped += count2;
+                        if (c2 == end2) break outer;
+                    }
+                    a[dest++] = t[c1++];
+                    if (c1 == len1) break outer;
+                    minGallop--;
+                } while (count1 >= MIN_GALLOP || count2 >= MIN_GALLOP);
+                if (minGallop < 0) minGallop = 0;
+                minGallop += 2; // galloping stopped paying off; make it harder to re-enter
+            }
+            // Whatever is left of the right run already sits at its final position
+            if (c1 < len1) System.arraycopy(t, c1, a, dest, len1 - c1);
+        }
+
+        /**
+         * Position of the first element in arr[base..base+len) that is not
+         * less than key, searched outward from hint with doubling steps.
+         */
+        private int gallopLeft(int key, int[] arr, int base, int len, int hint) {
+            int lastOfs = 0, ofs = 1;
+            if (cmp.compare(key, arr[base + hint]) > 0) {
+                int maxOfs = len - hint;
+                while (ofs < maxOfs && cmp.compare(key, arr[base + hint + ofs]) > 0) {
+                    lastOfs = ofs;
+                    ofs = (ofs << 1) + 1;
+                    if (ofs <= 0) ofs = maxOfs;
+                }
+                if (ofs > maxOfs) ofs = maxOfs;
+                lastOfs += hint;
+                ofs += hint;
+            } else {
+                int maxOfs = hint + 1;
+                while (ofs < maxOfs && cmp.compare(key, arr[base + hint - ofs]) <= 0) {
+                    lastOfs = ofs;
+                    ofs = (ofs << 1) + 1;
+                    if (ofs <= 0) ofs = maxOfs;
+                }
+                if (ofs > maxOfs) ofs = maxOfs;
+                int t = lastOfs;
+                lastOfs = hint - ofs;
+                ofs = hint - t;
+            }
+            // arr[base + lastOfs] < key <= arr[base + ofs]
+            lastOfs++;
+            while (lastOfs < ofs) {
+                int m = lastOfs + ((ofs - lastOfs) >>> 1);
+                if (cmp.compare(key, arr[base + m]) > 0) lastOfs = m + 1;
+                else ofs = m;
+            }
+            return ofs;
+        }
+
+        /** Like gallopLeft, but returns the first element greater than key, so equal elements stay in front. */
+        private int gallopRight(int key, int[] arr, int base, int len, int hint) {
+            int lastOfs = 0, ofs = 1;
+            if (cmp.compare(key, arr[base + hint]) < 0) {
+                int maxOfs = hint + 1;
+                while (ofs < maxOfs && cmp.compare(key, arr[base + hint - ofs]) < 0) {
+                    lastOfs = ofs;
+                    ofs = (ofs << 1) + 1;
+                    if (ofs <= 0) ofs = maxOfs;
+                }
+                if (ofs > maxOfs) ofs = maxOfs;
+                int t = lastOfs;
+                lastOfs = hint - ofs;
+                ofs = hint - t;
+            } else {
+                int maxOfs = len - hint;
+                while (ofs < maxOfs && cmp.compare(key, arr[base + hint + ofs]) >= 0) {
+                    lastOfs = ofs;
+                    ofs = (ofs << 1) + 1;
+                    if (ofs <= 0) ofs = maxOfs;
+                }
+                if (ofs > maxOfs) ofs = maxOfs;
+                lastOfs += hint;
+                ofs += hint;
+            }
+            // arr[base + lastOfs] <= key < arr[base + ofs]
+            lastOfs++;
+            while (lastOfs < ofs) {
+                int m = lastOfs + ((ofs - lastOfs) >>> 1);
+                if (cmp.compare(key, arr[base + m]) < 0) ofs = m;
+                else lastOfs = m + 1;
+            }
+            return ofs;
+        }
+    }
+
+    /**
+     * Fork-join merge sort over a row index. Both halves are sorted as
+     * separate tasks and, while a merge is still larger than the threshold,
+     * the merge itself is split around a binary-searched pivot so the top
+     * levels do not serialise on one core. Runs below the threshold fall
+     * back to a plain sequential merge sort.
+     *
+     * Pool size and cutoff come from -Dsort.parallel.threads and
+     * -Dsort.parallel.threshold.
+     */
+    static final class ParallelMergeSort {
+        static final int THRESHOLD = Math.max(2, Integer.getInteger("sort.parallel.threshold", 8192));
+        static final ForkJoinPool POOL = new ForkJoinPool(Math.max(1,
+                Integer.getInteger("sort.parallel.threads", Runtime.getRuntime().availableProcessors())));
+
+        static void sort(int[] a, RowComparator cmp, SortProgress progress) {
+            sort(a, cmp, progress, POOL, THRESHOLD);
+        }
+
+        static void sort(int[] a, RowComparator cmp, SortProgress progress, ForkJoinPool pool, int threshold) {
+            if (a.length < 2) return;
+            pool.invoke(new SortAction(a.clone(), a, 0, a.length, cmp, threshold, progress));
+        }
+
+        // Sorts [lo, hi) into dst, ping-ponging with src exactly like MergeSortKernel
+        private static final class SortAction extends RecursiveAction {
+            private static final long serialVersionUID = 1L;
+            private final int[] src, dst;
+            private final int lo, hi, threshold;
+            private final RowComparator cmp;
+            private final SortProgress progress;
+
+            SortAction(int[] src, int[] dst, int lo, int hi, RowComparator cmp, int threshold, SortProgress progress) {
+                this.src = src; this.dst = dst; this.lo = lo; this.hi = hi;
+                this.cmp = cmp; this.threshold = threshold; this.progress = progress;
+            }
+
+            @Override
+            protected void compute() {
+                if (hi - lo <= threshold) {
+                    MergeSortKernel.sortRange(src, dst, lo, hi, cmp, progress);
+                    return;
+                }
+                int mid = (lo + hi) >>> 1;
+                invokeAll(new SortAction(dst, src, lo, mid, cmp, threshold, progress),
+                          new SortAction(dst, src, mid, hi, cmp, threshold, progress));
+                progress.checkCancelled();
+                new MergeAction(src, lo, mid, mid, hi, dst, lo, cmp, threshold).compute();
+            }
+        }
+
+        // Stable merge of src[l1, h1) and src[l2, h2) into dst starting at d
+        private static final class MergeAction extends RecursiveAction {
+            private static final long serialVersionUID = 1L;
+            private final int[] src, dst;
+            private final int l1, h1, l2, h2, d, threshold;
+            private final RowComparator cmp;
+
+            MergeAction(int[] src, int l1, int h1, int l2, int h2, int[] dst, int d,
+                        RowComparator cmp, int threshold) {
+                this.src = src; this.l1 = l1; this.h1 = h1; this.l2 = l2; this.h2 = h2;
+                this.dst = dst; this.d = d; this.cmp = cmp; this.threshold = threshold;
+            }
+
+            @Override
+            protected void compute() {
+                int n1 = h1 - l1, n2 = h2 - l2;
+                if (n1 + n2 <= threshold || n1 == 0 || n2 == 0) {
+                    MergeSortKernel.merge(src, l1, h1, l2, h2, dst, d, cmp);
+                    return;
+                }
+                int m1, m2;
+                if (n1 >= n2) {
+                    // Right-run elements strictly below the pivot go left
+                    m1 = (l1 + h1) >>> 1;
+                    m2 = lowerBound(src, l2, h2, src[m1], cmp);
+                } else {
+                    // Left-run elements up to and including the pivot go left
+                    m2 = (l2 + h2) >>> 1;
+                    m1 = upperBound(src, l1, h1, src[m2], cmp);
+                }
+                int split = d + (m1 - l1) + (m2 - l2);
+                invokeAll(new MergeAction(src, l1, m1, l2, m2, dst, d, cmp, threshold),
+                          new MergeAction(src, m1, h1, m2, h2, dst, split, cmp, threshold));
+            }
+        }
+
+        // First index in [lo, hi) whose element is not less than key
+        private static int lowerBound(int[] a, int lo, int hi, int key, RowComparator cmp) {
+            while (lo < hi) {
+                int m = (lo + hi) >>> 1;
+                if (cmp.compare(a[m], key) < 0) lo = m + 1; else hi = m;
+            }
+            return lo;
+        }
+
+        // First index in [lo, hi) whose element is greater than key
+        private static int upperBound(int[] a, int lo, int hi, int key, RowComparator cmp) {
+            while (lo < hi) {
+                int m = (lo + hi) >>> 1;
+                if (cmp.compare(a[m], key) <= 0) lo = m + 1; else hi = m;
+            }
+            return lo;
+        }
+    }
+
+    /**
+     * Pre-folded sort keys for one name column. Each name is case-folded
+     * once and the first 8 bytes of its folded form are packed into a long
+     * (sign-flipped so a signed compare orders it like unsigned bytes).
+     * Most comparisons are settled by that single long compare. Only rows
+     * whose prefixes tie fall back to the full case-insensitive comparison
+     * on the arena. The resulting order is exactly String.CASE_INSENSITIVE_ORDER.
+     */
+    static final class NameKeys implements RowComparator {
+        private final RecordTable table;
+        private final boolean lastName;
+        private final long[] prefix; // indexed by row
+
+        private NameKeys(RecordTable table, boolean lastName, long[] prefix) {
+            this.table = table;
+            this.lastName = lastName;
+            this.prefix = prefix;
+        }
+
+        static NameKeys build(RecordTable table, boolean lastName) {
+            long[] prefix = new long[table.size()];
+            for (int row = 0; row < prefix.length; row++) {
+                prefix[row] = table.foldedPrefix(row, lastName);
+            }
+            return new NameKeys(table, lastName, prefix);
+        }
+
+        @Override
+        public int compare(int a, int b) {
+            long x = prefix[a], y = prefix[b];
+            if (x != y) return x < y ? -1 : 1;
+            return lastName ? table.compareLastName(a, b) : table.compareFirstName(a, b);
+        }
+    }
+
+    /** Compares two rows of a {@link RecordTable} by row number. */
+    @FunctionalInterface
+    interface RowComparator {
+        int compare(int a, int b);
+    }
+
+    /**
+     * Column store for the loaded rows: one int[] of ids plus both name
+     * columns packed into a single shared char[] arena. Row i's first name
+     * is arena[offsets[2i] .. offsets[2i+1]) and its last name runs up to
+     * offsets[2i+2], so a row costs 12 bytes plus its characters instead of
+     * a Record object and two Strings.
+     */
+    static final class RecordTable {
+        private int size = 0;
+        private int[] ids;
+        private int[] offsets;
+        private char[] arena;
+
+        RecordTable(int expectedRows) {
+            ids = new int[expectedRows];
+            offsets = new int[2 * expectedRows + 1];
+            arena = new char[Math.max(16, expectedRows * 12)];
+        }
+
+        int size() {
+            return size;
+        }
+
+        void add(int id, ByteBuffer src, int fnStart, int fnEnd, int lnStart, int lnEnd) {
+            if (size == ids.length) {
+                int cap = ids.length + (ids.length >> 1) + 1;
+                ids = Arrays.copyOf(ids, cap);
+                offsets = Arrays.copyOf(offsets, 2 * cap + 1);
+            }
+            ids[size] = id;
+            int end = offsets[2 * size];
+            end = appendName(src, fnStart, fnEnd, end);
+            offsets[2 * size + 1] = end;
+            end = appendName(src, lnStart, lnEnd, end);
+            offsets[2 * size + 2] = end;
+            size++;
+        }
+
+        // Copies one UTF-8 field into the arena, returns the new end offset
+        private int appendName(ByteBuffer src, int from, int to, int at) {
+            ensureArena(at + (to - from));
+            for (int k = from; k < to; k++) {
+                byte b = src.get(k);
+                if (b < 0) {
+                    // Non-ASCII: let the decoder deal with the whole field
+                    byte[] bytes = new byte[to - from];
+                    src.get(from, bytes);
+                    String s = new String(bytes, StandardCharsets.UTF_8);
+                    s.getChars(0, s.length(), arena, at - (k - from));
+                    return at - (k - from) + s.length();
+                }
+                arena[at++] = (char) b;
+            }
+            return at;
+        }
+
+        private void ensureArena(int needed) {
+            if (needed > arena.length) {
+                arena = Arrays.copyOf(arena, Math.max(needed, arena.length + (arena.length >> 1)));
+            }
+        }
+
+        // Drop the growth slack once loading is finished
+        void trimToSize() {
+            ids = Arrays.copyOf(ids, size);
+            offsets = Arrays.copyOf(offsets, 2 * size + 1);
+            arena = Arrays.copyOf(arena, offsets[2 * size]);
+        }
+
+        int[] identityOrder() {
+            int[] order = new int[size];
+            for (int i = 0; i < size; i++) order[i] = i;
+            return order;
+        }
+
+        int id(int row) {
+            return ids[row];
+        }
+
+        /** The id of each row in {@code order}, as a key array parallel to it. */
+        int[] idKeys(int[] order) {
+            int[] keys = new int[order.length];
+            for (int i = 0; i < order.length; i++) keys[i] = ids[order[i]];
+            return keys;
+        }
+
+        String firstName(int row) {
+            return new String(arena, offsets[2 * row], offsets[2 * row + 1] - offsets[2 * row]);
+        }
+
+        String lastName(int row) {
+            return new String(arena, offsets[2 * row + 1], offsets[2 * row + 2] - offsets[2 * row + 1]);
+        }
+
+        int compareId(int a, int b) {
+            return Integer.compare(ids[a], ids[b]);
+        }
+
+        int compareFirstName(int a, int b) {
+            return compareIgnoreCase(offsets[2 * a], offsets[2 * a + 1], offsets[2 * b], offsets[2 * b + 1]);
+        }
+
+        int compareLastName(int a, int b) {
+            return compareIgnoreCase(offsets[2 * a + 1], offsets[2 * a + 2], offsets[2 * b + 1], offsets[2 * b + 2]);
+        }
+
+        /**
+         * First 8 bytes of the case-folded name, big-endian, zero padded and
+         * sign-flipped. The name is folded per code point (surrogate pairs
+         * combined, lone surrogates kept as-is) and written in UTF-8 byte
+         * layout, whose byte order matches code point order, so comparing two
+         * keys never contradicts compareIgnoreCase. Equal keys mean
+         * "undecided", not "equal".
+         */
+        long foldedPrefix(int row, boolean lastName) {
+            int from = offsets[2 * row + (lastName ? 1 : 0)];
+            int to = offsets[2 * row + (lastName ? 2 : 1)];
+            long key = 0;
+            int bytes = 0;
+            for (int k = from; k < to && bytes < 8; k++) {
+                int cp = arena[k];
+                if (Character.isHighSurrogate((char) cp) && k + 1 < to && Character.isLowSurrogate(arena[k + 1])) {
+                    cp = Character.toCodePoint((char) cp, arena[++k]);
+                }
+                cp = fold(cp);
+                if (cp < 0x80) {
+                    key = (key << 8) | cp;
+                    bytes++;
+                    continue;
+                }
+                int len;
+                long enc;
+                if (cp < 0x800) {
+                    len = 2;
+                    enc = (0xC0 | (cp >> 6)) << 8 | (0x80 | (cp & 0x3F));
+                } else if (cp < 0x10000) {
+                    len = 3;
+                    enc = (0xE0 | (cp >> 12)) << 16 | (0x80 | ((cp >> 6) & 0x3F)) << 8 | (0x80 | (cp & 0x3F));
+                } else {
+                    len = 4;
+                    enc = (long) (0xF0 | (cp >> 18)) << 24 | (0x80 | ((cp >> 12) & 0x3F)) << 16
+                            | (0x80 | ((cp >> 6) & 0x3F)) << 8 | (0x80 | (cp & 0x3F));
+                }
+                for (int shift = (len - 1) * 8; shift >= 0 && bytes < 8; shift -= 8) {
+                    key = (key << 8) | ((enc >>> shift) & 0xFF);
+                    bytes++;
+                }
+            }
+            if (bytes < 8) key <<= 8 * (8 - bytes);
+            return key ^ Long.MIN_VALUE;
+        }
+
+        /**
+         * The d-th UTF-16 unit of the case-folded name as an ordering value,
+         * or -1 past the end. The high half of a surrogate pair is lifted
+         * above 0xFFFF, so comparing these units one by one gives the same
+         * order as compareIgnoreCase, which compares pairs as code points.
+         */
+        int foldedUnit(int row, boolean lastName, int d) {
+            int from = offsets[2 * row + (lastName ? 1 : 0)];
+            int k = from + d;
+            int to = offsets[2 * row + (lastName ? 2 : 1)];
+            if (k >= to) return -1;
+            char c = arena[k];
+            if (c < 0x80) return (c >= 'A' && c <= 'Z') ? c + 32 : c;
+            if (Character.isHighSurrogate(c) && k + 1 < to && Character.isLowSurrogate(arena[k + 1])) {
+                int cp = fold(Character.toCodePoint(c, arena[k + 1]));
+                return 0x10000 + (Character.highSurrogate(cp) - Character.MIN_HIGH_SURROGATE);
+            }
+            if (Character.isLowSurrogate(c) && k > from && Character.isHighSurrogate(arena[k - 1])) {
+                return Character.lowSurrogate(fold(Character.toCodePoint(arena[k - 1], c)));
+            }
+            return fold(c);
+        }
+
+        // The per-code-point normalisation String.CASE_INSENSITIVE_ORDER effectively compares by
+        private static int fold(int cp) {
+            if (cp < 0x80) return (cp >= 'A' && cp <= 'Z') ? cp + 32 : cp;
+            return Character.toLowerCase(Character.toUpperCase(cp));
+        }
+
+        /**
+         * Same ordering as String.CASE_INSENSITIVE_ORDER, straight off the
+         * arena. Mirrors the JDK's UTF-16 path: chars are compared one by one
+         * and, where they differ, surrogate pairs are compared as whole code
+         * points.
+         */
+        private int compareIgnoreCase(int a0, int a1, int b0, int b1) {
+            for (int k1 = a0, k2 = b0; k1 < a1 && k2 < b1; k1++, k2++) {
+                int c1 = arena[k1];
+                int c2 = arena[k2];
+                if (c1 == c2 || compareFolded(c1, c2) == 0) continue;
+                c1 = codePointIncluding(c1, k1, a0, a1);
+                if (c1 < 0) {
+                    k1++;
+                    c1 = -c1;
+                }
+                c2 = codePointIncluding(c2, k2, b0, b1);
+                if (c2 < 0) {
+                    k2++;
+                    c2 = -c2;
+                }
+                int diff = compareFolded(c1, c2);
+                if (diff != 0) return diff;
+            }
+            return (a1 - a0) - (b1 - b0);
+        }
+
+        private static int compareFolded(int c1, int c2) {
+            c1 = Character.toUpperCase(c1);
+            c2 = Character.toUpperCase(c2);
+            if (c1 != c2) {
+                c1 = Character.toLowerCase(c1);
+                c2 = Character.toLowerCase(c2);
+                if (c1 != c2) return c1 - c2;
+            }
+            return 0;
+        }
+
+        // Whole code point around arena[index]; negated when it also consumes the next char
+        private int codePointIncluding(int c, int index, int start, int end) {
+            if (!Character.isSurrogate((char) c)) return c;
+            if (Character.isLowSurrogate((char) c)) {
+                if (index > start && Character.isHighSurrogate(arena[index - 1])) {
+                    return Character.toCodePoint(arena[index - 1], (char) c);
+                }
+            } else if (index + 1 < end && Character.isLowSurrogate(arena[index + 1])) {
+                return -Character.toCodePoint((char) c, arena[index + 1]);
+            }
+            return c;
+        }
+
+        /** Approximate heap held by the columns, for comparing against the old object-per-row layout. */
+        long footprintBytes() {
+            return 4L * ids.length + 4L * offsets.length + 2L * arena.length;
         }
     }
-}
\ No newline at end of file
+}
@@ -1,13 +1,21 @@
 package PRELIM_LABWORK2;
 import javax.swing.*;
 import javax.swing.filechooser.FileNameExtensionFilter;
+import javax.swing.text.BadLocationException;
+import javax.swing.text.Document;
+import javax.swing.text.Segment;
 import java.awt.*;
 import java.awt.event.*;
 import java.io.BufferedReader;
 import java.io.File;
+import java.io.FileInputStream;
 import java.io.FileReader;
+import java.io.FileWriter;
 import java.io.IOException;
-import java.util.ArrayList;
+import java.io.InputStream;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
 import java.util.List;
 
 public class BubbleSortDescending extends JFrame {
@@ -22,15 +30,17 @@ public class BubbleSortDescending extends JFrame {
     private static final Color ERROR = new Color(244, 67, 54);
     
     private JTextArea inputArea;
-    private JTextArea outputArea;
+    private JList<String> inputList;
+    private JPanel inputViews;
+    private JList<String> outputList;
     private JTextArea statsArea;
     private MinimalButton loadFileButton;
     private MinimalButton sortButton;
     private MinimalButton clearButton;
     private JComboBox<String> algorithmSelector;
     private JLabel statusLabel;
-    private List<Double> currentData;
-    private List<SortResult> sortHistory;
+    private double[] currentData;
+    private SortHistory sortHistory;
     
     public BubbleSortDescending() {
         setTitle("Sorting Visualizer");
@@ -39,8 +49,8 @@ public class BubbleSortDescending extends JFrame {
         setLocationRelativeTo(null);
         getContentPane().setBackground(BG_PRIMARY);
         
-        currentData = new ArrayList<>();
-        sortHistory = new ArrayList<>();
+        currentData = new double[0];
+        sortHistory = new SortHistory(new File(System.getProperty("user.home"), ".bubblesort-history.csv"), 256);
         
         initComponents();
     }
@@ -73,10 +83,10 @@ public class BubbleSortDescending extends JFrame {
         JPanel controlPanel = new JPanel(new FlowLayout(FlowLayout.LEFT, 12, 0));
         controlPanel.setBackground(BG_PRIMARY);
         
-        String[] algorithms = {"Bubble Sort (Desc)", "Insertion Sort (Asc)", "Merge Sort (Asc)"};
+        String[] algorithms = {"Bubble Sort (Desc)", "Insertion Sort (Asc)", "Merge Sort (Asc)", "Adaptive TimSort (Asc)"};
         algorithmSelector = new JComboBox<>(algorithms);
         algorithmSelector.setFont(new Font("Arial", Font.PLAIN, 13));
-        algorithmSelector.setPreferredSize(new Dimension(180, 36));
+        algorithmSelector.setPreferredSize(new Dimension(200, 36));
         styleComboBox(algorithmSelector);
         
         loadFileButton = new MinimalButton("Load File");
@@ -100,19 +110,26 @@ public class BubbleSortDescending extends JFrame {
         JPanel dataContainer = new JPanel(new GridLayout(1, 3, 20, 0));
         dataContainer.setBackground(BG_PRIMARY);
         
-        // Input card
+        // Input card: typed numbers go in the text area, loaded files are shown in a list view
         JPanel inputCard = createDataCard("Input");
         inputArea = new JTextArea();
         styleTextArea(inputArea, true);
         JScrollPane inputScroll = new JScrollPane(inputArea);
         styleScrollPane(inputScroll);
-        inputCard.add(inputScroll, BorderLayout.CENTER);
+        inputList = new JList<>(new DoubleListModel(new double[0]));
+        styleList(inputList);
+        JScrollPane inputListScroll = new JScrollPane(inputList);
+        styleScrollPane(inputListScroll);
+        inputViews = new JPanel(new CardLayout());
+        inputViews.add(inputScroll, "edit");
+        inputViews.add(inputListScroll, "list");
+        inputCard.add(inputViews, BorderLayout.CENTER);
         
         // Output card
         JPanel outputCard = createDataCard("Output");
-        outputArea = new JTextArea();
-        styleTextArea(outputArea, false);
-        JScrollPane outputScroll = new JScrollPane(outputArea);
+        outputList = new JList<>(new DoubleListModel(new double[0]));
+        styleList(outputList);
+        JScrollPane outputScroll = new JScrollPane(outputList);
         styleScrollPane(outputScroll);
         outputCard.add(outputScroll, BorderLayout.CENTER);
         
@@ -187,6 +204,17 @@ public class BubbleSortDescending extends JFrame {
         area.setBorder(null);
     }
     
+    // A fixed cell size keeps JList from measuring every element, so only visible rows are formatted
+    private void styleList(JList<String> list) {
+        list.setFont(new Font("Monospaced", Font.PLAIN, 13));
+        list.setBackground(BG_SECONDARY);
+        list.setForeground(TEXT_PRIMARY);
+        list.setSelectionBackground(BORDER_COLOR);
+        list.setSelectionForeground(TEXT_PRIMARY);
+        list.setPrototypeCellValue("-0.0000000000000000E-000");
+        list.setBorder(BorderFactory.createEmptyBorder(8, 8, 8, 8));
+    }
+    
     private void styleScrollPane(JScrollPane scroll) {
         scroll.setBorder(BorderFactory.createLineBorder(BORDER_COLOR, 1));
         scroll.getVerticalScrollBar().setUI(new MinimalScrollBarUI());
@@ -200,13 +228,16 @@ public class BubbleSortDescending extends JFrame {
         int result = fileChooser.showOpenDialog(this);
         if (result == JFileChooser.APPROVE_OPTION) {
             File file = fileChooser.getSelectedFile();
-            List<Double> data = readDataset(file.getAbsolutePath());
+            long startTime = System.nanoTime();
+            double[] data = readDataset(file.getAbsolutePath());
+            double seconds = Math.max(System.nanoTime() - startTime, 1) / 1_000_000_000.0;
             
-            if (data != null && !data.isEmpty()) {
+            if (data != null && data.length > 0) {
                 currentData = data;
                 displayInputData();
                 sortButton.setEnabled(true);
-                statusLabel.setText("Loaded " + data.size() + " elements");
+                statusLabel.setText(String.format("Loaded %,d elements in %.1f ms (%.1f MB/s, %,.0f values/s)",
+                    data.length, seconds * 1000, file.length() / 1e6 / seconds, data.length / seconds));
             } else {
                 statusLabel.setText("Failed to load file");
             }
@@ -214,54 +245,74 @@ public class BubbleSortDescending extends JFrame {
     }
     
     private void displayInputData() {
-        StringBuilder sb = new StringBuilder();
-        for (Double num : currentData) {
-            if (num == num.longValue()) {
-                sb.append(num.longValue()).append("\n");
-            } else {
-                sb.append(num).append("\n");
-            }
-        }
-        inputArea.setText(sb.toString());
+        inputArea.setText("");
+        inputList.setModel(new DoubleListModel(currentData));
+        ((CardLayout) inputViews.getLayout()).show(inputViews, "list");
     }
     
     private void performSort() {
-        String manualInput = inputArea.getText().trim();
-        if (!manualInput.isEmpty()) {
-            currentData = parseManualInput(manualInput);
-        }
-        
-        if (currentData == null || currentData.isEmpty()) {
-            statusLabel.setText("No data to sort");
-            return;
-        }
-        
-        double[] dataArray = new double[currentData.size()];
-        for (int i = 0; i < currentData.size(); i++) {
-            dataArray[i] = currentData.get(i);
-        }
+        // Typed input is parsed on the worker; the text area stays read-only until it is done
+        Document manualInput = inputArea.getDocument();
+        double[] loadedData = currentData;
         
         String algorithm = (String) algorithmSelector.getSelectedItem();
-        statusLabel.setText("Sorting...");
+        // Load and Clear would replace the data (and Clear would block on the
+        // document lock the parser holds), so they wait for the run as well
+        inputArea.setEditable(false);
+        sortButton.setEnabled(false);
+        loadFileButton.setEnabled(false);
+        clearButton.setEnabled(false);
+        statusLabel.setText(manualInput.getLength() > 0 ? "Parsing input..." : "Sorting...");
         
-        SwingWorker<SortResult, Void> worker = new SwingWorker<SortResult, Void>() {
+        SwingWorker<SortResult, String> worker = new SwingWorker<SortResult, String>() {
+            private double[] input;
+            
             @Override
             protected SortResult doInBackground() {
+                double[] parsed = manualInput.getLength() > 0 ? DatasetReader.parse(manualInput) : null;
+                input = parsed != null ? parsed : loadedData;
+                if (input.length == 0) {
+                    return null;
+                }
+                if (parsed != null) {
+                    publish(String.format("Parsed %,d values, sorting...", parsed.length));
+                }
+                
+                // The sorts work in place; the input stays in its original order for the next run
+                double[] dataArray = input.clone();
+                SortResult result;
                 if (algorithm.contains("Bubble")) {
-                    return bubbleSortDescending(dataArray);
+                    result = bubbleSortDescending(dataArray);
                 } else if (algorithm.contains("Insertion")) {
-                    return insertionSortAscending(dataArray);
+                    result = insertionSortAscending(dataArray);
+                } else if (algorithm.contains("TimSort")) {
+                    result = timSortAscending(dataArray);
                 } else {
-                    return mergeSortAscending(dataArray);
+                    result = mergeSortAscending(dataArray);
                 }
+                result.algorithmName = algorithm;
+                sortHistory.add(SortHistory.Entry.of(result));
+                return result;
+            }
+            
+            @Override
+            protected void process(List<String> messages) {
+                statusLabel.setText(messages.get(messages.size() - 1));
             }
             
             @Override
             protected void done() {
+                inputArea.setEditable(true);
+                sortButton.setEnabled(true);
+                loadFileButton.setEnabled(true);
+                clearButton.setEnabled(true);
                 try {
                     SortResult result = get();
-                    result.algorithmName = algorithm;
-                    sortHistory.add(result);
+                    currentData = input;
+                    if (result == null) {
+                        statusLabel.setText("No data to sort");
+                        return;
+                    }
                     displaySortedData(result);
                     updateStatsDisplay();
                 } catch (Exception e) {
@@ -273,48 +324,15 @@ public class BubbleSortDescending extends JFrame {
         worker.execute();
     }
     
-    private List<Double> parseManualInput(String input) {
-        List<Double> numbers = new ArrayList<>();
-        String[] lines = input.split("\n");
-        
-        for (String line : lines) {
-            line = line.trim();
-            if (line.isEmpty()) continue;
-            
-            try {
-                numbers.add(Double.parseDouble(line));
-            } catch (NumberFormatException e) {
-                String[] parts = line.contains(",") ? line.split(",") : line.split("\\s+");
-                for (String part : parts) {
-                    part = part.trim();
-                    if (!part.isEmpty()) {
-                        try {
-                            numbers.add(Double.parseDouble(part));
-                        } catch (NumberFormatException ex) {
-                            // Skip invalid numbers
-                        }
-                    }
-                }
-            }
-        }
-        
-        return numbers;
-    }
-    
     private void displaySortedData(SortResult result) {
-        StringBuilder sb = new StringBuilder();
+        outputList.setModel(new DoubleListModel(result.sortedArray));
         
-        for (double num : result.sortedArray) {
-            if (num == (long) num) {
-                sb.append((long) num).append("\n");
-            } else {
-                sb.append(num).append("\n");
-            }
+        String status = String.format("Completed in %.6f seconds, %s allocated",
+            result.timeTaken, formatBytes(result.bytesAllocated));
+        if (result.runSummary != null) {
+            status += " | " + result.runSummary;
         }
-        
-        outputArea.setText(sb.toString());
-        
-        statusLabel.setText(String.format("Completed in %.6f seconds", result.timeTaken));
+        statusLabel.setText(status);
     }
     
     private void updateStatsDisplay() {
@@ -325,22 +343,33 @@ public class BubbleSortDescending extends JFrame {
         
         StringBuilder sb = new StringBuilder();
         
-        SortResult latest = sortHistory.get(sortHistory.size() - 1);
+        SortHistory.Entry latest = sortHistory.recent(0);
         sb.append("Latest Sort\n");
         sb.append("─────────────────────────\n");
-        sb.append(String.format("Algorithm: %s\n", latest.algorithmName));
-        sb.append(String.format("Elements: %d\n", latest.sortedArray.length));
-        sb.append(String.format("Time: %.6f s\n\n", latest.timeTaken));
+        sb.append(String.format("Algorithm: %s\n", latest.algorithm));
+        sb.append(String.format("Elements: %d\n", latest.n));
+        sb.append(String.format("Time: %.6f s\n", latest.seconds));
+        sb.append(String.format("Allocated: %s\n", formatBytes(latest.bytesAllocated)));
+        sb.append(String.format("Checksum: %016x\n", latest.checksum));
+        if (latest.runSummary != null) {
+            sb.append(String.format("Runs: %s\n", latest.runSummary));
+        }
+        SortHistory.Entry previous = sortHistory.previousRunOf(latest);
+        if (previous != null && previous.seconds > 0) {
+            sb.append(String.format("vs previous: %+.1f%% (%.6f s)\n",
+                (latest.seconds / previous.seconds - 1) * 100, previous.seconds));
+        }
+        sb.append("\n");
         
         if (sortHistory.size() > 1) {
-            sb.append("History\n");
+            sb.append(String.format("History (%d kept)\n", sortHistory.size()));
             sb.append("─────────────────────────\n");
             
-            for (int i = sortHistory.size() - 1; i >= 0 && i >= sortHistory.size() - 5; i--) {
-                SortResult r = sortHistory.get(i);
-                sb.append(String.format("%s\n", r.algorithmName));
-                sb.append(String.format("%d elements, %.6f s\n\n", 
-                    r.sortedArray.length, r.timeTaken));
+            for (int i = 0; i < sortHistory.size() && i < 5; i++) {
+                SortHistory.Entry r = sortHistory.recent(i);
+                sb.append(String.format("%s\n", r.algorithm));
+                sb.append(String.format("%d elements, %.6f s, %s\n\n", 
+                    r.n, r.seconds, formatBytes(r.bytesAllocated)));
             }
         }
         
@@ -350,8 +379,10 @@ public class BubbleSortDescending extends JFrame {
     
     private void clearAll() {
         inputArea.setText("");
-        outputArea.setText("");
-        currentData.clear();
+        inputList.setModel(new DoubleListModel(new double[0]));
+        ((CardLayout) inputViews.getLayout()).show(inputViews, "edit");
+        outputList.setModel(new DoubleListModel(new double[0]));
+        currentData = new double[0];
         sortButton.setEnabled(false);
         statusLabel.setText("Ready");
     }
@@ -359,6 +390,7 @@ public class BubbleSortDescending extends JFrame {
     // ========== SORTING ALGORITHMS ==========
     
     public static SortResult bubbleSortDescending(double[] arr) {
+        long startBytes = threadAllocatedBytes();
         long startTime = System.nanoTime();
         int n = arr.length;
         
@@ -380,10 +412,11 @@ public class BubbleSortDescending extends JFrame {
         long endTime = System.nanoTime();
         double timeTaken = (endTime - startTime) / 1_000_000_000.0;
         
-        return new SortResult(arr, timeTaken);
+        return new SortResult(arr, timeTaken, allocatedSince(startBytes));
     }
     
     public static SortResult insertionSortAscending(double[] arr) {
+        long startBytes = threadAllocatedBytes();
         long startTime = System.nanoTime();
         int n = arr.length;
         
@@ -402,118 +435,792 @@ public class BubbleSortDescending extends JFrame {
         long endTime = System.nanoTime();
         double timeTaken = (endTime - startTime) / 1_000_000_000.0;
         
-        return new SortResult(arr, timeTaken);
+        return new SortResult(arr, timeTaken, allocatedSince(startBytes));
     }
     
     public static SortResult mergeSortAscending(double[] arr) {
+        long startBytes = threadAllocatedBytes();
         long startTime = System.nanoTime();
         
         if (arr.length > 1) {
-            mergeSortHelper(arr, 0, arr.length - 1);
+            // The only allocation of the sort: src and aux swap roles level by level
+            double[] aux = arr.clone();
+            mergeSortHelper(aux, arr, 0, arr.length - 1);
         }
         
         long endTime = System.nanoTime();
         double timeTaken = (endTime - startTime) / 1_000_000_000.0;
         
-        return new SortResult(arr, timeTaken);
+        return new SortResult(arr, timeTaken, allocatedSince(startBytes));
     }
     
-    private static void mergeSortHelper(double[] arr, int left, int right) {
+    public static SortResult timSortAscending(double[] arr) {
+        long startBytes = threadAllocatedBytes();
+        long startTime = System.nanoTime();
+        
+        AdaptiveMergeSort.RunStats stats = AdaptiveMergeSort.sort(arr);
+        
+        long endTime = System.nanoTime();
+        double timeTaken = (endTime - startTime) / 1_000_000_000.0;
+        
+        SortResult result = new SortResult(arr, timeTaken, allocatedSince(startBytes));
+        result.runSummary = stats.toString();
+        return result;
+    }
+    
+    // Sorts src[left..right] into dst[left..right]; both hold the same values on entry
+    private static void mergeSortHelper(double[] src, double[] dst, int left, int right) {
         if (left < right) {
             int mid = left + (right - left) / 2;
             
-            mergeSortHelper(arr, left, mid);
-            mergeSortHelper(arr, mid + 1, right);
-            merge(arr, left, mid, right);
+            mergeSortHelper(dst, src, left, mid);
+            mergeSortHelper(dst, src, mid + 1, right);
+            merge(src, dst, left, mid, right);
         }
     }
     
-    private static void merge(double[] arr, int left, int mid, int right) {
-        int n1 = mid - left + 1;
-        int n2 = right - mid;
+    // Merges the sorted runs src[left..mid] and src[mid+1..right] into dst
+    private static void merge(double[] src, double[] dst, int left, int mid, int right) {
+        int i = left, j = mid + 1, k = left;
         
-        double[] L = new double[n1];
-        double[] R = new double[n2];
-        
-        for (int i = 0; i < n1; i++) {
-            L[i] = arr[left + i];
-        }
-        for (int j = 0; j < n2; j++) {
-            R[j] = arr[mid + 1 + j];
-        }
-        
-        int i = 0, j = 0, k = left;
-        
-        while (i < n1 && j < n2) {
-            if (L[i] <= R[j]) {
-                arr[k] = L[i];
+        while (i <= mid && j <= right) {
+            if (src[i] <= src[j]) {
+                dst[k] = src[i];
                 i++;
             } else {
-                arr[k] = R[j];
+                dst[k] = src[j];
                 j++;
             }
             k++;
         }
         
-        while (i < n1) {
-            arr[k] = L[i];
+        while (i <= mid) {
+            dst[k] = src[i];
             i++;
             k++;
         }
         
-        while (j < n2) {
-            arr[k] = R[j];
+        while (j <= right) {
+            dst[k] = src[j];
             j++;
             k++;
         }
     }
     
-    public static List<Double> readDataset(String filename) {
-        List<Double> numbers = new ArrayList<>();
+    // Bytes allocated so far by this thread, or -1 if the JVM does not track it
+    private static long threadAllocatedBytes() {
+        java.lang.management.ThreadMXBean mx = java.lang.management.ManagementFactory.getThreadMXBean();
+        if (mx instanceof com.sun.management.ThreadMXBean) {
+            com.sun.management.ThreadMXBean tmx = (com.sun.management.ThreadMXBean) mx;
+            if (tmx.isThreadAllocatedMemorySupported() && tmx.isThreadAllocatedMemoryEnabled()) {
+                return tmx.getThreadAllocatedBytes(Thread.currentThread().getId());
+            }
+        }
+        return -1;
+    }
+    
+    private static long allocatedSince(long startBytes) {
+        long now = threadAllocatedBytes();
+        return (startBytes < 0 || now < 0) ? -1 : Math.max(0, now - startBytes);
+    }
+    
+    static String formatBytes(long bytes) {
+        if (bytes < 0) return "n/a";
+        if (bytes < 1024) return bytes + " B";
+        if (bytes < 1024 * 1024) return String.format("%.1f KB", bytes / 1024.0);
+        return String.format("%.1f MB", bytes / (1024.0 * 1024.0));
+    }
+    
+    public static double[] readDataset(String filename) {
+        try {
+            return DatasetReader.read(filename);
+        } catch (IOException e) {
+            return null;
+        }
+    }
+    
+    /**
+     * TimSort-style adaptive merge sort, ascending. The input is scanned for
+     * natural runs; strictly descending runs are reversed in place (strictly,
+     * so equal values keep their order) and runs shorter than
+     * minRun are extended with binary insertion. Runs are merged off a stack
+     * that keeps their lengths roughly balanced. Each merge first gallops to
+     * skip the prefix of the left run and the suffix of the right run that
+     * are already in place, then merges through a copy of the left run,
+     * switching to galloping while one side keeps winning. Data made of long
+     * ascending and descending stretches, like dataset.txt, needs far fewer
+     * comparisons than the log n full passes of mergeSortAscending.
+     */
+    static class AdaptiveMergeSort {
+        private static final int MIN_MERGE = 32;
+        private static final int MIN_GALLOP = 7;
+
+        /** What the run scan and the merges found; shown with the sort result. */
+        static class RunStats {
+            int runs;
+            int reversed;
+            int extended;
+            int longest;
+            int minRun;
+            int merges;
+            long galloped;
+
+            @Override
+            public String toString() {
+                return String.format("%,d runs (%,d reversed, %,d extended to %d), longest %,d, %,d merges, %,d galloped",
+                        runs, reversed, extended, minRun, longest, merges, galloped);
+            }
+        }
+
+        static RunStats sort(double[] a) {
+            AdaptiveMergeSort s = new AdaptiveMergeSort(a);
+            s.sortAll();
+            return s.stats;
+        }
+
+        private final double[] a;
+        private final RunStats stats = new RunStats();
+        private double[] tmp = new double[0];
+        private int minGallop = MIN_GALLOP;
+        // Pending runs; the length invariants keep the stack well under 49 entries for any int length
+        private final int[] runBase = new int[49];
+        private final int[] runLen = new int[49];
+        private int stackSize = 0;
+
+        private AdaptiveMergeSort(double[] a) {
+            this.a = a;
+        }
+
+        private void sortAll() {
+            int n = a.length;
+            int minRun = minRunLength(n);
+            stats.minRun = minRun;
+            int lo = 0;
+            while (lo < n) {
+                int len = countRunAndMakeAscending(lo, n);
+                stats.runs++;
+                stats.longest = Math.max(stats.longest, len);
+                int force = Math.min(minRun, n - lo);
+                if (len < force) {
+                    binaryInsertionSort(lo, lo + force, lo + len);
+                    stats.extended++;
+                    len = force;
+                }
+                runBase[stackSize] = lo;
+                runLen[stackSize] = len;
+                stackSize++;
+                mergeCollapse();
+                lo += len;
+            }
+            while (stackSize > 1) {
+                int i = stackSize - 2;
+                if (i > 0 && runLen[i - 1] < runLen[i + 1]) i--;
+                mergeAt(i);
+            }
+        }
+
+        // n itself below MIN_MERGE, otherwise a value in [16, 32] that makes n / minRun close to a power of two
+        private static int minRunLength(int n) {
+            int r = 0;
+            while (n >= MIN_MERGE) {
+                r |= n & 1;
+                n >>= 1;
+            }
+            return n + r;
+        }
+
+        private int countRunAndMakeAscending(int lo, int hi) {
+            int runHi = lo + 1;
+            if (runHi == hi) return 1;
+            if (a[runHi++] < a[lo]) {
+                while (runHi < hi && a[runHi] < a[runHi - 1]) runHi++;
+                for (int i = lo, j = runHi - 1; i < j; i++, j--) {
+                    double t = a[i];
+                    a[i] = a[j];
+                    a[j] = t;
+                }
+                stats.reversed++;
+            } else {
+                while (runHi < hi && a[runHi] >= a[runHi - 1]) runHi++;
+            }
+            return runHi - lo;
+        }
+
+        // a[lo..start) is sorted; inserts a[start..hi) one by one after a binary search
+        private void binaryInsertionSort(int lo, int hi, int start) {
+            for (; start < hi; start++) {
+                double pivot = a[start];
+                int left = lo, right = start;
+                while (left < right) {
+                    int mid = (left + right) >>> 1;
+                    if (pivot < a[mid]) right = mid;
+                    else left = mid + 1;
+                }
+                System.arraycopy(a, left, a, left + 1, start - left);
+                a[left] = pivot;
+            }
+        }
+
+        // Merges until runLen[i - 2] > runLen[i - 1] + runLen[i] and runLen[i - 1] > runLen[i] hold down the stack
+        private void mergeCollapse() {
+            while (stackSize > 1) {
+                int i = stackSize - 2;
+                if (i > 0 && runLen[i - 1] <= runLen[i] + runLen[i + 1]
+                        || i > 1 && runLen[i - 2] <= runLen[i] + runLen[i - 1]) {
+                    if (runLen[i - 1] < runLen[i + 1]) i--;
+                } else if (runLen[i] > runLen[i + 1]) {
+                    break;
+                }
+                mergeAt(i);
+            }
+        }
+
+        private void mergeAt(int i) {
+            int base1 = runBase[i], len1 = runLen[i];
+            int base2 = runBase[i + 1], len2 = runLen[i + 1];
+            runLen[i] = len1 + len2;
+            if (i == stackSize - 3) {
+                runBase[i + 1] = runBase[i + 2];
+                runLen[i + 1] = runLen[i + 2];
+            }
+            stackSize--;
+            stats.merges++;
+
+            // Left-run elements not greater than the right run's first are already in place...
+            int k = gallopRight(a[base2], a, base1, len1, 0);
+            base1 += k;
+            len1 -= k;
+            if (len1 == 0) {
+                stats.galloped += k + len2;
+                return;
+            }
+            // ...and so are right-run elements not less than the left run's last
+            int keep = gallopLeft(a[base1 + len1 - 1], a, base2, len2, len2 - 1);
+            stats.galloped += k + len2 - keep;
+            if (keep == 0) return;
+            mergeLo(base1, len1, base2, keep);
+        }
+
+        // Requires a[base2] < a[base1]; the left run is copied out and merged back from the front
+        private void mergeLo(int base1, int len1, int base2, int len2) {
+            if (tmp.length < len1) tmp = new double[Math.max(len1, Math.min(a.length, tmp.length * 2))];
+            double[] t = tmp;
+            System.arraycopy(a, base1, t, 0, len1);
+            int c1 = 0, c2 = base2, dest = base1;
+            int end2 = base2 + len2;
+            a[dest++] = a[c2++];
+            outer:
+            while (c1 < len1 && c2 < end2) {
+                // One element at a time until one side wins minGallop times in a row
+                int count1 = 0, count2 = 0;
+                while ((count1 | count2) < minGallop) {
+                    if (a[c2] < t[c1]) {
+                        a[dest++] = a[c2++];
+                        count2++;
+                        count1 = 0;
+                        if (c2 == end2) break outer;
+                    } else {
+                        a[dest++] = t[c1++];
+                        count1++;
+                        count2 = 0;
+                        if (c1 == len1) break outer;
+                    }
+                }
+                // Then find how far each side wins with exponential search and move whole blocks
+                do {
+                    count1 = gallopRight(a[c2], t, c1, len1 - c1, 0);
+                    if (count1 != 0) {
+                        System.arraycopy(t, c1, a, dest, count1);
+                        dest += count1;
+                        c1 += count1;
+                        stats.galloped += count1;
+                        if (c1 == len1) break outer;
+                    }
+                    a[dest++] = a[c2++];
+                    if (c2 == end2) break outer;
+                    count2 = gallopLeft(t[c1], a, c2, end2 - c2, 0);
+                    if (count2 != 0) {
+                        System.arraycopy(a, c2, a, dest, count2);
+                        dest += count2;
+                        c2 += count2;
+                        stats.galloped += count2;
+                        if (c2 == end2) break outer;
+                    }
+                    a[dest++] = t[c1++];
+                    if (c1 == len1) break outer;
+                    minGallop--;
+                } while (count1 >= MIN_GALLOP || count2 >= MIN_GALLOP);
+                if (minGallop < 0) minGallop = 0;
+                minGallop += 2; // galloping stopped paying off; make it harder to re-enter
+            }
+            // Whatever is left of the right run already sits at its final position
+            if (c1 < len1) System.arraycopy(t, c1, a, dest, len1 - c1);
+        }
+
+        /**
+         * Position of the first element in arr[base..base+len) that is not
+         * less than key, searched outward from hint with doubling steps.
+         */
+        private int gallopLeft(double key, double[] arr, int base, int len, int hint) {
+            int lastOfs = 0, ofs = 1;
+            if (key > arr[base + hint]) {
+                int maxOfs = len - hint;
+                while (ofs < maxOfs && key > arr[base + hint + ofs]) {
+                    lastOfs = ofs;
+                    ofs = (ofs << 1) + 1;
+                    if (ofs <= 0) ofs = maxOfs;
+                }
+                if (ofs > maxOfs) ofs = maxOfs;
+                lastOfs += hint;
+                ofs += hint;
+            } else {
+                int maxOfs = hint + 1;
+                while (ofs < maxOfs && key <= arr[base + hint - ofs]) {
+                    lastOfs = ofs;
+                    ofs = (ofs << 1) + 1;
+                    if (ofs <= 0) ofs = maxOfs;
+                }
+                if (ofs > maxOfs) ofs = maxOfs;
+                int t = lastOfs;
+                lastOfs = hint - ofs;
+                ofs = hint - t;
+            }
+            // arr[base + lastOfs] < key <= arr[base + ofs]
+            lastOfs++;
+            while (lastOfs < ofs) {
+                int m = lastOfs + ((ofs - lastOfs) >>> 1);
+                if (key > arr[base + m]) lastOfs = m + 1;
+                else ofs = m;
+            }
+            return ofs;
+        }
+
+        /** Like gallopLeft, but returns the first element greater than key, so equal elements stay in front. */
+        private int gallopRight(double key, double[] arr, int base, int len, int hint) {
+            int lastOfs = 0, ofs = 1;
+            if (key < arr[base + hint]) {
+                int maxOfs = hint + 1;
+                while (ofs < maxOfs && key < arr[base + hint - ofs]) {
+                    lastOfs = ofs;
+                    ofs = (ofs << 1) + 1;
+                    if (ofs <= 0) ofs = maxOfs;
+                }
+                if (ofs > maxOfs) ofs = maxOfs;
+                int t = lastOfs;
+                lastOfs = hint - ofs;
+                ofs = hint - t;
+            } else {
+                int maxOfs = len - hint;
+                while (ofs < maxOfs && key >= arr[base + hint + ofs]) {
+                    lastOfs = ofs;
+                    ofs = (ofs << 1) + 1;
+                    if (ofs <= 0) ofs = maxOfs;
+                }
+                if (ofs > maxOfs) ofs = maxOfs;
+                lastOfs += hint;
+                ofs += hint;
+            }
+            // arr[base + lastOfs] <= key < arr[base + ofs]
+            lastOfs++;
+            while (lastOfs < ofs) {
+                int m = lastOfs + ((ofs - lastOfs) >>> 1);
+                if (key < arr[base + m]) ofs = m;
+                else lastOfs = m + 1;
+            }
+            return ofs;
+        }
+    }
+
+    /**
+     * Streaming dataset reader. Bytes are parsed straight into a growable
+     * double[]; no String is made per line or per number. The tolerance is
+     * the same as the old line-by-line reader: a line containing a comma is
+     * split on commas, any other line on whitespace, tokens are trimmed, and
+     * tokens that are not numbers are skipped.
+     */
+    static class DatasetReader {
+        private static final int BUFFER_SIZE = 1 << 16;
+        // Every power of ten up to 1e22 is exact in a double
+        private static final double[] POW10 = {
+            1e0, 1e1, 1e2, 1e3, 1e4, 1e5, 1e6, 1e7, 1e8, 1e9, 1e10, 1e11,
+            1e12, 1e13, 1e14, 1e15, 1e16, 1e17, 1e18, 1e19, 1e20, 1e21, 1e22
+        };
         
-        try (BufferedReader reader = new BufferedReader(new FileReader(filename))) {
-            String line;
-            
-            while ((line = reader.readLine()) != null) {
-                line = line.trim();
-                if (line.isEmpty()) continue;
-                
+        static double[] read(String filename) throws IOException {
+            GrowableDoubleArray out = new GrowableDoubleArray();
+            try (InputStream in = new FileInputStream(filename)) {
+                byte[] buf = new byte[BUFFER_SIZE];
+                int start = 0, scan = 0, end = 0;
+                boolean eof = false;
+                while (true) {
+                    while (scan < end && buf[scan] != '\n' && buf[scan] != '\r') scan++;
+                    if (scan < end) {
+                        parseLine(buf, start, scan, out);
+                        start = ++scan;
+                        continue;
+                    }
+                    if (eof) {
+                        parseLine(buf, start, end, out);
+                        break;
+                    }
+                    // Only a partial line is left: move it to the front, or grow if it fills the buffer
+                    if (start > 0) {
+                        System.arraycopy(buf, start, buf, 0, end - start);
+                        end -= start;
+                        scan -= start;
+                        start = 0;
+                    } else if (end == buf.length) {
+                        buf = Arrays.copyOf(buf, buf.length * 2);
+                    }
+                    int read = in.read(buf, end, buf.length - end);
+                    if (read < 0) eof = true;
+                    else end += read;
+                }
+            }
+            return out.toArray();
+        }
+        
+        /**
+         * Tokenizes a text document in place, reading its characters through
+         * a partial-return Segment so the text is never copied into a String.
+         * Lines end only on '\n', as in a text area, and each line is narrowed
+         * into a reusable byte buffer for parseLine. Characters outside ASCII
+         * become 0x7F, which is neither a digit nor a separator, so a token
+         * containing one is skipped. Returns null if the document is blank.
+         */
+        static double[] parse(Document doc) {
+            GrowableDoubleArray out = new GrowableDoubleArray();
+            boolean[] blank = {true};
+            doc.render(() -> {
+                Segment seg = new Segment();
+                seg.setPartialReturn(true);
+                byte[] line = new byte[256];
+                int len = 0;
+                int offset = 0, length = doc.getLength();
                 try {
-                    numbers.add(Double.parseDouble(line));
-                } catch (NumberFormatException e) {
-                    String[] parts = line.contains(",") ? line.split(",") : line.split("\\s+");
-                    for (String part : parts) {
-                        part = part.trim();
-                        if (!part.isEmpty()) {
-                            try {
-                                numbers.add(Double.parseDouble(part));
-                            } catch (NumberFormatException ex) {
-                                // Skip invalid
+                    while (offset < length) {
+                        doc.getText(offset, length - offset, seg);
+                        for (int k = seg.offset, end = seg.offset + seg.count; k < end; k++) {
+                            char c = seg.array[k];
+                            if (c == '\n') {
+                                parseLine(line, 0, len, out);
+                                len = 0;
+                                continue;
                             }
+                            if (c > ' ') blank[0] = false;
+                            if (len == line.length) line = Arrays.copyOf(line, len * 2);
+                            line[len++] = (byte) (c < 0x80 ? c : 0x7F);
                         }
+                        offset += seg.count;
                     }
+                } catch (BadLocationException ex) {
+                    // Offsets stay inside the document while the read lock is held
+                    throw new IllegalStateException(ex);
                 }
+                parseLine(line, 0, len, out);
+            });
+            return blank[0] ? null : out.toArray();
+        }
+        
+        static void parseLine(byte[] b, int from, int to, GrowableDoubleArray out) {
+            boolean comma = false;
+            for (int i = from; i < to && !comma; i++) comma = b[i] == ',';
+            int i = from;
+            while (i < to) {
+                int j = i;
+                if (comma) {
+                    while (j < to && b[j] != ',') j++;
+                } else {
+                    while (i < to && isSpace(b[i])) i++;
+                    j = i;
+                    while (j < to && !isSpace(b[j])) j++;
+                }
+                int s = i, e = j;
+                while (s < e && (b[s] & 0xFF) <= ' ') s++;
+                while (e > s && (b[e - 1] & 0xFF) <= ' ') e--;
+                if (s < e) parseToken(b, s, e, out);
+                i = j + 1;
+            }
+        }
+        
+        // The characters String.split("\\s+") splits on
+        private static boolean isSpace(byte c) {
+            return c == ' ' || c == '\t' || c == '\n' || c == 0x0B || c == '\f' || c == '\r';
+        }
+        
+        /**
+         * Plain decimals with at most 18 significant digits and a small
+         * exponent are computed exactly as one multiplication or division
+         * by a power of ten. Everything else (long mantissas, huge
+         * exponents, NaN, hex, type suffixes) goes to Double.parseDouble,
+         * so the result is always the value Double.parseDouble returns.
+         */
+        static void parseToken(byte[] b, int from, int to, GrowableDoubleArray out) {
+            int i = from;
+            boolean negative = false;
+            if (b[i] == '-' || b[i] == '+') {
+                negative = b[i] == '-';
+                i++;
+            }
+            long mantissa = 0;
+            int digits = 0, exponent = 0;
+            boolean fast = true;
+            while (i < to && b[i] >= '0' && b[i] <= '9') {
+                if (mantissa != 0 || b[i] != '0') digits++;
+                mantissa = mantissa * 10 + (b[i] - '0');
+                if (digits > 18) fast = false;
+                i++;
+                if (!fast) break;
+            }
+            boolean anyDigit = i > from + (negative || b[from] == '+' ? 1 : 0);
+            if (fast && i < to && b[i] == '.') {
+                i++;
+                int fracStart = i;
+                while (i < to && b[i] >= '0' && b[i] <= '9') {
+                    if (mantissa != 0 || b[i] != '0') digits++;
+                    mantissa = mantissa * 10 + (b[i] - '0');
+                    exponent--;
+                    if (digits > 18) {
+                        fast = false;
+                        break;
+                    }
+                    i++;
+                }
+                anyDigit |= i > fracStart;
+            }
+            if (fast && anyDigit && i < to && (b[i] == 'e' || b[i] == 'E')) {
+                i++;
+                boolean expNegative = false;
+                if (i < to && (b[i] == '-' || b[i] == '+')) {
+                    expNegative = b[i] == '-';
+                    i++;
+                }
+                int expStart = i, exp = 0;
+                while (i < to && b[i] >= '0' && b[i] <= '9' && i - expStart < 6) {
+                    exp = exp * 10 + (b[i] - '0');
+                    i++;
+                }
+                if (i == expStart) fast = false;
+                exponent += expNegative ? -exp : exp;
+            }
+            if (fast && anyDigit && i == to && mantissa <= (1L << 53) && exponent >= -22 && exponent <= 22) {
+                double v = exponent >= 0 ? mantissa * POW10[exponent] : mantissa / POW10[-exponent];
+                out.add(negative ? -v : v);
+                return;
+            }
+            try {
+                out.add(Double.parseDouble(new String(b, from, to - from, StandardCharsets.ISO_8859_1)));
+            } catch (NumberFormatException ex) {
+                // Skip invalid
             }
-            
-            return numbers;
-            
-        } catch (IOException e) {
-            return null;
+        }
+    }
+    
+    /**
+     * Read-only list over a double[]. Rows are formatted only when JList asks
+     * for them, which is only for rows on screen, and the strings go into a
+     * small direct-mapped cache so scrolling back and repainting do not format
+     * the same numbers again.
+     */
+    static class DoubleListModel extends AbstractListModel<String> {
+        private static final long serialVersionUID = 1L;
+        private static final int CACHE_SIZE = 1024; // power of two, several screens of rows
+        private final double[] values;
+        private final String[] cachedText = new String[CACHE_SIZE];
+        private final int[] cachedIndex = new int[CACHE_SIZE];
+        
+        DoubleListModel(double[] values) {
+            this.values = values;
+            Arrays.fill(cachedIndex, -1);
+        }
+        
+        @Override
+        public int getSize() {
+            return values.length;
+        }
+        
+        @Override
+        public String getElementAt(int index) {
+            int slot = index & (CACHE_SIZE - 1);
+            if (cachedIndex[slot] != index) {
+                cachedText[slot] = formatNumber(values[index]);
+                cachedIndex[slot] = index;
+            }
+            return cachedText[slot];
+        }
+    }
+    
+    // Whole numbers without a trailing ".0", as the text areas used to show them
+    static String formatNumber(double num) {
+        return num == (long) num ? Long.toString((long) num) : Double.toString(num);
+    }
+    
+    /** A double[] that doubles its capacity as values are appended. */
+    static class GrowableDoubleArray {
+        private double[] data = new double[1024];
+        private int size = 0;
+        
+        void add(double value) {
+            if (size == data.length) {
+                data = Arrays.copyOf(data, size * 2);
+            }
+            data[size++] = value;
+        }
+        
+        int size() {
+            return size;
+        }
+        
+        double[] toArray() {
+            return Arrays.copyOf(data, size);
         }
     }
     
     static class SortResult {
         double[] sortedArray;
         double timeTaken;
+        long bytesAllocated;
         String algorithmName;
+        String runSummary; // run statistics, adaptive sort only
         
-        SortResult(double[] sortedArray, double timeTaken) {
+        SortResult(double[] sortedArray, double timeTaken, long bytesAllocated) {
             this.sortedArray = sortedArray;
             this.timeTaken = timeTaken;
+            this.bytesAllocated = bytesAllocated;
             this.algorithmName = "";
         }
     }
     
+    /**
+     * Sort history as compact summaries instead of SortResults, so old runs
+     * do not keep their sorted arrays alive. The newest entries stay in a
+     * fixed-size ring buffer for the stats panel. Every entry is also
+     * appended to a CSV log, and the tail of that log is read back at
+     * startup so comparisons survive a restart. add() is called from the
+     * sort worker and the getters from the EDT, hence the synchronization.
+     * If the log cannot be read or written the history stays in memory only.
+     */
+    static class SortHistory {
+        private static final String HEADER = "timestamp,algorithm,n,seconds,bytesAllocated,checksum,runSummary";
+        private final File log;
+        private final Entry[] ring;
+        private int next;  // slot the next entry goes into
+        private int count;
+        private boolean logWritable = true;
+        
+        static class Entry {
+            final long timestamp;
+            final String algorithm;
+            final int n;
+            final double seconds;
+            final long bytesAllocated;
+            final long checksum;
+            final String runSummary; // null unless the adaptive sort ran
+            
+            Entry(long timestamp, String algorithm, int n, double seconds,
+                  long bytesAllocated, long checksum, String runSummary) {
+                this.timestamp = timestamp;
+                this.algorithm = algorithm;
+                this.n = n;
+                this.seconds = seconds;
+                this.bytesAllocated = bytesAllocated;
+                this.checksum = checksum;
+                this.runSummary = runSummary;
+            }
+            
+            static Entry of(SortResult result) {
+                return new Entry(System.currentTimeMillis(), result.algorithmName, result.sortedArray.length,
+                    result.timeTaken, result.bytesAllocated, checksum(result.sortedArray), result.runSummary);
+            }
+            
+            // The run summary goes last because it contains commas of its own
+            String toCsv() {
+                return timestamp + "," + algorithm + "," + n + "," + seconds + "," + bytesAllocated + ","
+                    + Long.toHexString(checksum) + "," + (runSummary == null ? "" : runSummary);
+            }
+            
+            static Entry parse(String line) {
+                String[] f = line.split(",", 7);
+                if (f.length < 7) return null;
+                try {
+                    return new Entry(Long.parseLong(f[0]), f[1], Integer.parseInt(f[2]), Double.parseDouble(f[3]),
+                        Long.parseLong(f[4]), Long.parseUnsignedLong(f[5], 16), f[6].isEmpty() ? null : f[6]);
+                } catch (NumberFormatException ex) {
+                    return null;
+                }
+            }
+        }
+        
+        SortHistory(File log, int capacity) {
+            this.log = log;
+            this.ring = new Entry[capacity];
+            if (!log.exists()) return;
+            try (BufferedReader reader = new BufferedReader(new FileReader(log, StandardCharsets.UTF_8))) {
+                String line;
+                while ((line = reader.readLine()) != null) {
+                    Entry e = Entry.parse(line);
+                    if (e != null) push(e); // the header and damaged lines do not parse
+                }
+            } catch (IOException ex) {
+                logWritable = false;
+            }
+        }
+        
+        /**
+         * Order-sensitive hash of the sorted values. Two runs over the same
+         * input must produce the same sorted sequence, so equal checksums
+         * for the same n mean the outputs agree.
+         */
+        static long checksum(double[] values) {
+            long h = 0xcbf29ce484222325L;
+            for (double v : values) {
+                h = (h ^ Double.doubleToLongBits(v)) * 0x100000001b3L;
+            }
+            return h;
+        }
+        
+        synchronized void add(Entry e) {
+            push(e);
+            if (!logWritable) return;
+            boolean fresh = !log.exists();
+            try (Writer out = new FileWriter(log, StandardCharsets.UTF_8, true)) {
+                if (fresh) out.write(HEADER + "\n");
+                out.write(e.toCsv() + "\n");
+            } catch (IOException ex) {
+                logWritable = false;
+            }
+        }
+        
+        private void push(Entry e) {
+            ring[next] = e;
+            next = (next + 1) % ring.length;
+            if (count < ring.length) count++;
+        }
+        
+        synchronized int size() {
+            return count;
+        }
+        
+        synchronized boolean isEmpty() {
+            return count == 0;
+        }
+        
+        /** The entry {@code back} runs before the newest one; recent(0) is the newest. */
+        synchronized Entry recent(int back) {
+            if (back < 0 || back >= count) throw new IndexOutOfBoundsException(back);
+            return ring[(next - 1 - back + ring.length) % ring.length];
+        }
+        
+        /** The newest earlier entry with the same algorithm and size, or null. */
+        synchronized Entry previousRunOf(Entry e) {
+            for (int i = 0; i < count; i++) {
+                Entry r = recent(i);
+                if (r != e && r.algorithm.equals(e.algorithm) && r.n == e.n) return r;
+            }
+            return null;
+        }
+    }
+    
     static class MinimalButton extends JButton {
         private boolean isHovered = false;
         
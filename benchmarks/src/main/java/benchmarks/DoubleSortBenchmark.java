@@ -0,0 +1,72 @@
+package benchmarks;
+
+import PRELIM_LABWORK2.BubbleSortDescending;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.*;
+
+/**
+ * The double[] kernels of PRELIM_LABWORK2. Every invocation sorts a fresh
+ * copy of the input, so the copy (8 bytes per element) is part of each
+ * measurement and of gc.alloc.rate.norm. The kernels still time themselves
+ * with nanoTime and read the allocation counter; that overhead is constant
+ * per call and shows up only at the smallest sizes.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(value = 1, jvmArgsAppend = "-Djava.awt.headless=true")
+public class DoubleSortBenchmark {
+
+    @State(Scope.Thread)
+    public static class Quadratic {
+        @Param({"1000", "10000"})
+        public int size;
+
+        @Param
+        public InputShape shape;
+
+        public double[] input;
+
+        @Setup(Level.Trial)
+        public void setup() {
+            input = shape.doubles(size);
+        }
+    }
+
+    @State(Scope.Thread)
+    public static class Linearithmic {
+        @Param({"1000", "100000", "1000000"})
+        public int size;
+
+        @Param
+        public InputShape shape;
+
+        public double[] input;
+
+        @Setup(Level.Trial)
+        public void setup() {
+            input = shape.doubles(size);
+        }
+    }
+
+    @Benchmark
+    public Object bubbleSortDescending(Quadratic s) {
+        return BubbleSortDescending.bubbleSortDescending(s.input.clone());
+    }
+
+    @Benchmark
+    public Object insertionSortAscending(Quadratic s) {
+        return BubbleSortDescending.insertionSortAscending(s.input.clone());
+    }
+
+    @Benchmark
+    public Object mergeSortAscending(Linearithmic s) {
+        return BubbleSortDescending.mergeSortAscending(s.input.clone());
+    }
+
+    @Benchmark
+    public Object timSortAscending(Linearithmic s) {
+        return BubbleSortDescending.timSortAscending(s.input.clone());
+    }
+}
@@ -0,0 +1,56 @@
+package benchmarks;
+
+import java.util.SplittableRandom;
+
+/**
+ * Input distributions every kernel is measured on. All shapes are generated
+ * from a fixed seed, so each fork sorts exactly the same data.
+ */
+public enum InputShape {
+    SORTED,
+    REVERSED,
+    RANDOM,
+    /** Sorted, then about 1% of the positions swapped at random. */
+    NEARLY_SORTED,
+    /** Only 16 distinct values, in random order. */
+    DUPLICATES;
+
+    static final long SEED = 0x5EED_2025L;
+
+    /** n integer keys in this shape; 0..n-1 for every shape except DUPLICATES. */
+    public int[] keys(int n) {
+        SplittableRandom rnd = new SplittableRandom(SEED);
+        int[] k = new int[n];
+        for (int i = 0; i < n; i++) {
+            k[i] = this == DUPLICATES ? rnd.nextInt(16) : i;
+        }
+        switch (this) {
+            case REVERSED:
+                for (int i = 0, j = n - 1; i < j; i++, j--) swap(k, i, j);
+                break;
+            case RANDOM:
+                for (int i = n - 1; i > 0; i--) swap(k, i, rnd.nextInt(i + 1));
+                break;
+            case NEARLY_SORTED:
+                for (int s = Math.max(1, n / 100); s > 0 && n > 1; s--) swap(k, rnd.nextInt(n), rnd.nextInt(n));
+                break;
+            default:
+                break;
+        }
+        return k;
+    }
+
+    /** The same shape as doubles, with a fractional part so the values are not whole numbers. */
+    public double[] doubles(int n) {
+        int[] k = keys(n);
+        double[] d = new double[n];
+        for (int i = 0; i < n; i++) d[i] = k[i] * 1.5 + 0.25;
+        return d;
+    }
+
+    private static void swap(int[] a, int i, int j) {
+        int t = a[i];
+        a[i] = a[j];
+        a[j] = t;
+    }
+}
@@ -0,0 +1,112 @@
+package benchmarks;
+
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.*;
+
+/**
+ * The PRELIM_EXAM sort engine on loaded record tables. Each invocation
+ * builds the column keys and sorts a fresh identity order, which is what a
+ * single GUI run times as "key build" plus "sort". ID benchmarks go through
+ * the primitive int-key kernels and name benchmarks through the folded
+ * prefix comparator or, for MSD radix, the character-wise partitioning.
+ * Loading the CSV happens once per trial and is not measured.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(value = 1, jvmArgsAppend = "-Djava.awt.headless=true")
+public class RecordSortBenchmark {
+
+    @State(Scope.Thread)
+    public static class Quadratic {
+        @Param({"1000", "10000"})
+        public int size;
+
+        @Param
+        public InputShape shape;
+
+        public Object table;
+
+        @Setup(Level.Trial)
+        public void setup() throws Throwable {
+            table = StressTestKernels.table(shape, size);
+        }
+    }
+
+    @State(Scope.Thread)
+    public static class Linearithmic {
+        @Param({"1000", "100000", "1000000"})
+        public int size;
+
+        @Param
+        public InputShape shape;
+
+        public Object table;
+
+        @Setup(Level.Trial)
+        public void setup() throws Throwable {
+            table = StressTestKernels.table(shape, size);
+        }
+    }
+
+    @Benchmark
+    public int[] bubbleSortId(Quadratic s) throws Throwable {
+        return StressTestKernels.sort("Bubble Sort", "ID", s.table);
+    }
+
+    @Benchmark
+    public int[] bubbleSortName(Quadratic s) throws Throwable {
+        return StressTestKernels.sort("Bubble Sort", "FirstName", s.table);
+    }
+
+    @Benchmark
+    public int[] insertionSortId(Quadratic s) throws Throwable {
+        return StressTestKernels.sort("Insertion Sort", "ID", s.table);
+    }
+
+    @Benchmark
+    public int[] insertionSortName(Quadratic s) throws Throwable {
+        return StressTestKernels.sort("Insertion Sort", "FirstName", s.table);
+    }
+
+    @Benchmark
+    public int[] mergeSortId(Linearithmic s) throws Throwable {
+        return StressTestKernels.sort("Merge Sort", "ID", s.table);
+    }
+
+    @Benchmark
+    public int[] mergeSortName(Linearithmic s) throws Throwable {
+        return StressTestKernels.sort("Merge Sort", "FirstName", s.table);
+    }
+
+    @Benchmark
+    public int[] adaptiveTimSortId(Linearithmic s) throws Throwable {
+        return StressTestKernels.sort("Adaptive TimSort", "ID", s.table);
+    }
+
+    @Benchmark
+    public int[] adaptiveTimSortName(Linearithmic s) throws Throwable {
+        return StressTestKernels.sort("Adaptive TimSort", "FirstName", s.table);
+    }
+
+    @Benchmark
+    public int[] parallelMergeSortId(Linearithmic s) throws Throwable {
+        return StressTestKernels.sort("Parallel Merge Sort", "ID", s.table);
+    }
+
+    @Benchmark
+    public int[] parallelMergeSortName(Linearithmic s) throws Throwable {
+        return StressTestKernels.sort("Parallel Merge Sort", "FirstName", s.table);
+    }
+
+    @Benchmark
+    public int[] radixSortLsdId(Linearithmic s) throws Throwable {
+        return StressTestKernels.sort("Radix Sort (LSD)", "ID", s.table);
+    }
+
+    @Benchmark
+    public int[] msdRadixName(Linearithmic s) throws Throwable {
+        return StressTestKernels.sort("MSD Radix (strings)", "FirstName", s.table);
+    }
+}
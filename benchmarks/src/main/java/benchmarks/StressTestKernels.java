@@ -0,0 +1,101 @@
+package benchmarks;
+
+import java.io.File;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+
+/**
+ * Bridge to the PRELIM_EXAM sort engine. SortingStressTest lives in the
+ * default package, which a named package cannot import (and JMH will not
+ * generate benchmarks in), so the engine is reached through method handles.
+ * The handles are static finals, which the JIT treats as constants and
+ * inlines like a direct call.
+ */
+final class StressTestKernels {
+    private static final MethodHandle NEW_LOADER;
+    private static final MethodHandle LOAD;
+    private static final MethodHandle IDENTITY_ORDER;
+    private static final MethodHandle NEW_ENGINE;
+    private static final MethodHandle BUILD_KEYS;
+    private static final MethodHandle SORT;
+
+    static {
+        try {
+            Class<?> loader = Class.forName("SortingStressTest$MappedCsvLoader");
+            Class<?> table = Class.forName("SortingStressTest$RecordTable");
+            Class<?> engine = Class.forName("SortingStressTest$SortEngine");
+            MethodHandles.Lookup lookup = MethodHandles.lookup();
+            MethodHandles.Lookup inLoader = MethodHandles.privateLookupIn(loader, lookup);
+            MethodHandles.Lookup inTable = MethodHandles.privateLookupIn(table, lookup);
+            MethodHandles.Lookup inEngine = MethodHandles.privateLookupIn(engine, lookup);
+
+            NEW_LOADER = inLoader.findConstructor(loader, MethodType.methodType(void.class))
+                    .asType(MethodType.methodType(Object.class));
+            LOAD = inLoader.findVirtual(loader, "load", MethodType.methodType(table, File.class, int.class))
+                    .asType(MethodType.methodType(Object.class, Object.class, File.class, int.class));
+            IDENTITY_ORDER = inTable.findVirtual(table, "identityOrder", MethodType.methodType(int[].class))
+                    .asType(MethodType.methodType(int[].class, Object.class));
+            NEW_ENGINE = inEngine.findConstructor(engine, MethodType.methodType(void.class, String.class, String.class))
+                    .asType(MethodType.methodType(Object.class, String.class, String.class));
+            BUILD_KEYS = inEngine.findVirtual(engine, "buildKeys", MethodType.methodType(void.class, table, int[].class))
+                    .asType(MethodType.methodType(void.class, Object.class, Object.class, int[].class));
+            SORT = inEngine.findVirtual(engine, "sort", MethodType.methodType(void.class, table, int[].class))
+                    .asType(MethodType.methodType(void.class, Object.class, Object.class, int[].class));
+        } catch (ReflectiveOperationException ex) {
+            throw new ExceptionInInitializerError(ex);
+        }
+    }
+
+    private StressTestKernels() {
+    }
+
+    /**
+     * Writes an ID,FirstName,LastName CSV whose ids and names both follow the
+     * given shape, then loads it through the engine's own loader.
+     */
+    static Object table(InputShape shape, int n) throws Throwable {
+        int[] keys = shape.keys(n);
+        File csv = File.createTempFile("sortbench", ".csv");
+        try {
+            try (Writer w = new OutputStreamWriter(Files.newOutputStream(csv.toPath()), StandardCharsets.UTF_8)) {
+                w.write("ID,FirstName,LastName\n");
+                for (int k : keys) {
+                    w.write(k + "," + name(k) + "," + name(n - 1 - k) + "\n");
+                }
+            }
+            Object loader = (Object) NEW_LOADER.invokeExact();
+            return (Object) LOAD.invokeExact(loader, csv, n);
+        } finally {
+            csv.delete();
+        }
+    }
+
+    /**
+     * Six base-26 letters in mixed case. Case-insensitive name order matches
+     * key order, so a name column has the same shape as the keys.
+     */
+    static String name(int key) {
+        char[] c = new char[6];
+        int v = key;
+        for (int i = c.length - 1; i >= 0; i--) {
+            int d = v % 26;
+            v /= 26;
+            c[i] = (char) (((i + d) & 1) == 0 ? 'A' + d : 'a' + d);
+        }
+        return new String(c);
+    }
+
+    /** Key build plus sort, exactly as one GUI run does it; returns the sorted row order. */
+    static int[] sort(String algorithm, String column, Object table) throws Throwable {
+        int[] order = (int[]) IDENTITY_ORDER.invokeExact(table);
+        Object engine = (Object) NEW_ENGINE.invokeExact(algorithm, column);
+        BUILD_KEYS.invokeExact(engine, table, order);
+        SORT.invokeExact(engine, table, order);
+        return order;
+    }
+}